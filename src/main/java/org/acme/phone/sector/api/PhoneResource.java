@@ -1,23 +1,22 @@
 package org.acme.phone.sector.api;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import org.acme.phone.sector.api.analyzer.PhoneNumberAnalyzer;
-import org.acme.phone.sector.cache.redis.PhoneRedisService;
-import org.acme.phone.sector.model.ImmutablePhoneData;
-import org.acme.phone.sector.model.PhoneData;
-import org.acme.phone.sector.model.PhoneSectorResponse;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.acme.phone.sector.api.pipeline.AggregatePipeline;
+import org.acme.phone.sector.cache.AggregateCacheService;
+import org.acme.phone.sector.cache.PhoneCacheService;
+import org.acme.phone.sector.model.PhonesAggregate;
+import org.acme.phone.sector.model.PhonesLookup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
-import java.util.ArrayList;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Phone resource API to handle requests.
@@ -32,132 +31,84 @@ public class PhoneResource {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(PhoneResource.class);
     /**
-     * Rest client to external phone service.
+     * Aggregate pipeline, to get and aggregate phones data.
      */
     @Inject
-    @RestClient
-    private PhoneService phoneService;
+    private AggregatePipeline aggregatePipeline;
 
     /**
-     * Phone redis client to cache requests performed with {@link PhoneService}.
+     * Aggregate cache service to cache aggregates of previously requested numbers.
      */
     @Inject
-    private PhoneRedisService phoneRedisService;
+    private AggregateCacheService aggregateCacheService;
 
     /**
-     * Phone number analyzer.
+     * Phone cache service, to record the accesses to phones served from cached aggregates.
      */
     @Inject
-    private PhoneNumberAnalyzer analyzer;
+    private PhoneCacheService phoneCacheService;
 
     /**
      * Aggregates phone numbers given a list of phone numbers obtained from user input and returns the
-     * count of valid phones broken down per prefix and per business sector.
+     * count of valid phones broken down per prefix and per business sector. Aggregates are cached by the
+     * fingerprint of the numbers until the first of their phones expires, and tagged so clients that already have
+     * the aggregate get a {@code 304 Not Modified} without body.
      *
-     * @param numbers numbers to aggregate
+     * @param ifNoneMatch entity tags of the aggregates the client already has
+     * @param numbers     numbers to aggregate
      * @return count of valid {@code numbers} broken down per prefix and per business sector
      */
     @POST
-    public Map<String, Map<String, Integer>> aggregate(final List<String> numbers) {
+    public Response aggregate(@HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch,
+                              final List<String> numbers) {
         try {
-            final List<PhoneData> phonesData = getPhonesData(numbers);
-            return aggregatePhonesData(phonesData);
-        } catch (final Exception e) {
-            LOGGER.error("Failed to aggregate phone numbers.", e);
-        }
-
-        return Collections.emptyMap();
-    }
-
-    /**
-     * Get {@link PhoneData} for each phone number provided. For each number it validates the number initially,
-     * if the number is not valid it proceeds to the next number, otherwise it checks if the number was
-     * previously requested to the external api (checks if exists in redis). If the number exists then it used
-     * uses data stored and proceeds, otherwise it requests the number data to the external api.
-     *
-     * @param numbers number to get {@link PhoneData}
-     * @return phones data
-     * @throws JsonProcessingException when redis interaction fails
-     */
-    private List<PhoneData> getPhonesData(final List<String> numbers) throws JsonProcessingException {
-        final List<PhoneData> phonesData = new ArrayList<>();
-        for (final String number : numbers) {
-            final String prefix = analyzer.getPhonePrefix(number);
-            if (prefix == null) {
-                continue;
+            final String fingerprint = aggregateCacheService.getFingerprint(numbers);
+            PhonesAggregate aggregate = aggregateCacheService.getAggregate(fingerprint);
+            if (aggregate == null) {
+                final PhonesLookup phonesLookup = aggregatePipeline.getPhonesData(numbers);
+                aggregate = aggregateCacheService.createAggregate(aggregatePipeline.aggregate(phonesLookup.phonesData()),
+                        phonesLookup.expiresAt());
+                if (phonesLookup.complete()) {
+                    aggregateCacheService.setAggregate(fingerprint, aggregate);
+                }
+            } else {
+                // phones served from the aggregate skip the phones lookup, record them for refresh-ahead
+                phoneCacheService.recordAccesses(numbers);
             }
 
-            if (phoneRedisService.phoneExists(number)) {
-                phonesData.add(phoneRedisService.getPhone(number));
-                continue;
+            final EntityTag entityTag = new EntityTag(aggregate.etag());
+            if (matchesEntityTag(ifNoneMatch, entityTag)) {
+                return Response.notModified(entityTag).build();
             }
 
-            final PhoneSectorResponse response = handleGetSectorRequest(number);
-            if (response != null) {
-                final PhoneData phoneData = ImmutablePhoneData.builder()
-                        .number(number)
-                        .prefix(prefix)
-                        .sector(response.sector())
-                        .build();
-
-                phoneRedisService.setPhone(phoneData);
-                phonesData.add(phoneData);
-            }
+            return Response.ok(aggregate.sectors()).tag(entityTag).build();
+        } catch (final Exception e) {
+            LOGGER.error("Failed to aggregate phone numbers.", e);
         }
 
-        return phonesData;
+        return Response.ok(Collections.emptyMap()).build();
     }
 
     /**
-     * Handler for {@link PhoneService#getByNumber(String)} to deal with exception during the request.
+     * Checks if an entity tag matches the entity tags of a {@code If-None-Match} header, with weak comparison.
      *
-     * @param number the number to request the sector
-     * @return phone sector response
+     * @param ifNoneMatch the header value, a list of entity tags or "*"
+     * @param entityTag   the entity tag to match
+     * @return true if matches, false otherwise or if the header is absent
      */
-    private PhoneSectorResponse handleGetSectorRequest(final String number) {
-        try {
-            return phoneService.getByNumber(number);
-        } catch (final Exception e) {
-            LOGGER.error("Failed request to get number {} sector.", number, e);
-            return null;
+    private boolean matchesEntityTag(final String ifNoneMatch, final EntityTag entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
         }
-    }
 
-    /**
-     * Aggregates {@link PhoneData} per prefix and per business sector.
-     *
-     * @param phonesData phone numbers data to aggregate
-     * @return phones data aggregated per prefix and per business sector
-     */
-    private Map<String, Map<String, Integer>> aggregatePhonesData(final List<PhoneData> phonesData) {
-        final Map<String, Map<String, Integer>> response = new HashMap<>();
-        for (final PhoneData phoneData : phonesData) {
-            if (response.containsKey(phoneData.prefix())) {
-                final Map<String, Integer> sectors = response.get(phoneData.prefix());
-                if (sectors.containsKey(phoneData.sector())) {
-                    sectors.merge(
-                            phoneData.sector(),
-                            1,
-                            Integer::sum
-                    );
-                } else {
-                    sectors.put(
-                            phoneData.sector(),
-                            1
-                    );
-                }
-                continue;
+        final String quotedTag = "\"" + entityTag.getValue() + "\"";
+        for (final String value : ifNoneMatch.split(",")) {
+            final String tag = value.trim();
+            if (tag.equals("*") || tag.equals(quotedTag) || tag.equals("W/" + quotedTag)) {
+                return true;
             }
-
-            final Map<String, Integer> sectors = new HashMap<String, Integer>() {{
-                put(phoneData.sector(), 1);
-            }};
-            response.put(
-                    phoneData.prefix(),
-                    sectors
-            );
         }
 
-        return response;
+        return false;
     }
 }
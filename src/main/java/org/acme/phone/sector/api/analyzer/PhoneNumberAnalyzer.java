@@ -43,34 +43,45 @@ public class PhoneNumberAnalyzer {
     private PrefixesCache prefixesCache;
 
     /**
-     * Get a phone prefix. Validates the number and if valid, extracts the prefix, otherwise it returns null.
+     * Get a canonical number prefix, the shortest leading digits that are a known prefix.
      *
-     * @param number the number to get prefix
-     * @return the number prefix
+     * @param canonicalNumber the canonical number to get prefix, as returned by {@link #getCanonicalNumber(String)}
+     * @return the number prefix, or null if the number does not start with a known prefix
      */
-    public String getPhonePrefix(final String number) {
+    public String getPrefix(final String canonicalNumber) {
+        for (int i = 1; i <= canonicalNumber.length(); i++) {
+            final String prefix = canonicalNumber.substring(0, i);
+            if (prefixesCache.exists(prefix)) {
+                return prefix;
+            }
+        }
+
+        LOGGER.error("Could not find number prefix.");
+        return null;
+    }
+
+    /**
+     * Get a phone canonical number, the number digits without the leading ("+" or "00") and whitespaces. Numbers
+     * written in different formats share the same canonical number.
+     *
+     * @param number the number to get the canonical number
+     * @return the canonical number, or null if the number is not valid
+     */
+    public String getCanonicalNumber(final String number) {
         final Matcher matcher = pattern.matcher(number);
         if (!matcher.matches()) {
-            LOGGER.error("Phone number {} is not valid.", number);
             return null;
         }
 
-        StringBuilder buffer = new StringBuilder();
-        int i = getPhoneIndex(matcher.group("leading"));
-        for (; i < number.length(); i++) {
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = getPhoneIndex(matcher.group("leading")); i < number.length(); i++) {
             final char digit = number.charAt(i);
             if (!Character.isWhitespace(digit)) {
-                buffer.append(number.charAt(i));
-                final String prefix = buffer.toString();
-
-                if (prefixesCache.exists(prefix)) {
-                    return prefix;
-                }
+                buffer.append(digit);
             }
         }
 
-        LOGGER.error("Could not find number prefix.");
-        return null;
+        return buffer.toString();
     }
 
     /**
@@ -0,0 +1,216 @@
+package org.acme.phone.sector.api.client;
+
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.spi.VertxMetricsFactory;
+import io.vertx.core.spi.metrics.HttpClientMetrics;
+import io.vertx.core.spi.metrics.VertxMetrics;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vertx metrics of the HTTP client connection pools, per host: connections open, connections idle and the time
+ * requests wait for a pooled connection. Set as the metrics factory of the vertx instance the client is created with.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class ConnectionPoolMetrics implements VertxMetricsFactory {
+    /**
+     * Metric registry.
+     */
+    private final MetricRegistry registry;
+    /**
+     * Backend name, used as metrics tag.
+     */
+    private final String backendName;
+    /**
+     * Connection pools metrics, by host.
+     */
+    private final Map<String, PoolMetrics> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param registry    metric registry
+     * @param backendName backend name, used as metrics tag
+     */
+    public ConnectionPoolMetrics(final MetricRegistry registry, final String backendName) {
+        this.registry = registry;
+        this.backendName = backendName;
+    }
+
+    @Override
+    public VertxMetrics metrics(final VertxOptions options) {
+        return new VertxMetrics() {
+            @Override
+            public HttpClientMetrics<?, ?, ?, ?, ?> createHttpClientMetrics(final HttpClientOptions clientOptions) {
+                return new PoolHttpClientMetrics();
+            }
+        };
+    }
+
+    /**
+     * Get the metrics of a host connection pool, registering them on the first connection pool to the host.
+     *
+     * @param host the host
+     * @param port the port
+     * @return the connection pool metrics
+     */
+    private PoolMetrics getPoolMetrics(final String host, final int port) {
+        return pools.computeIfAbsent(host + ":" + port, authority -> {
+            final Tag[] tags = {new Tag("host", authority), new Tag("backend", backendName)};
+            final PoolMetrics pool = new PoolMetrics(registry.timer("phone-sector.upstream.pool.wait-time", tags));
+            registry.register(
+                    Metadata.builder()
+                            .withName("phone-sector.upstream.pool.open-connections")
+                            .withDescription("Connections open to the phone sector api.")
+                            .withType(MetricType.GAUGE)
+                            .build(),
+                    (Gauge<Integer>) pool.open::get,
+                    tags
+            );
+            registry.register(
+                    Metadata.builder()
+                            .withName("phone-sector.upstream.pool.idle-connections")
+                            .withDescription("Connections open to the phone sector api without requests in flight.")
+                            .withType(MetricType.GAUGE)
+                            .build(),
+                    (Gauge<Integer>) () -> Math.max(pool.open.get() - pool.busy.get(), 0),
+                    tags
+            );
+            return pool;
+        });
+    }
+
+    /**
+     * HTTP client metrics, tracking the connections and waiting requests of each connection pool.
+     */
+    private class PoolHttpClientMetrics implements HttpClientMetrics<ConnectionMetrics, Void, ConnectionMetrics, PoolMetrics, Long> {
+        @Override
+        public PoolMetrics createEndpoint(final String host, final int port, final int maxPoolSize) {
+            return getPoolMetrics(host, port);
+        }
+
+        @Override
+        public Long enqueueRequest(final PoolMetrics pool) {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void dequeueRequest(final PoolMetrics pool, final Long enqueuedAt) {
+            if (pool != null && enqueuedAt != null) {
+                pool.waitTime.update(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public ConnectionMetrics connected(final SocketAddress remoteAddress, final String remoteName) {
+            return new ConnectionMetrics();
+        }
+
+        @Override
+        public void endpointConnected(final PoolMetrics pool, final ConnectionMetrics connection) {
+            if (pool != null && connection != null) {
+                connection.pool = pool;
+                pool.open.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void endpointDisconnected(final PoolMetrics pool, final ConnectionMetrics connection) {
+            if (pool != null && connection != null) {
+                pool.open.decrementAndGet();
+                if (connection.inFlight.getAndSet(0) > 0) {
+                    pool.busy.decrementAndGet();
+                }
+            }
+        }
+
+        @Override
+        public ConnectionMetrics requestBegin(final PoolMetrics pool, final ConnectionMetrics connection,
+                                              final SocketAddress localAddress, final SocketAddress remoteAddress,
+                                              final HttpClientRequest request) {
+            if (connection != null && connection.pool != null && connection.inFlight.getAndIncrement() == 0) {
+                connection.pool.busy.incrementAndGet();
+            }
+
+            return connection;
+        }
+
+        @Override
+        public void responseEnd(final ConnectionMetrics connection, final HttpClientResponse response) {
+            release(connection);
+        }
+
+        @Override
+        public void requestReset(final ConnectionMetrics connection) {
+            release(connection);
+        }
+
+        /**
+         * Releases a connection from a request that ended, idle once it has no requests in flight.
+         *
+         * @param connection the connection metrics
+         */
+        private void release(final ConnectionMetrics connection) {
+            if (connection != null && connection.pool != null
+                    && connection.inFlight.getAndUpdate(count -> Math.max(count - 1, 0)) == 1) {
+                connection.pool.busy.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Metrics of a host connection pool.
+     */
+    private static class PoolMetrics {
+        /**
+         * Connections open.
+         */
+        private final AtomicInteger open = new AtomicInteger();
+        /**
+         * Connections with requests in flight.
+         */
+        private final AtomicInteger busy = new AtomicInteger();
+        /**
+         * Time requests wait for a pooled connection.
+         */
+        private final Timer waitTime;
+
+        /**
+         * Constructor.
+         *
+         * @param waitTime time requests wait for a pooled connection
+         */
+        private PoolMetrics(final Timer waitTime) {
+            this.waitTime = waitTime;
+        }
+    }
+
+    /**
+     * Metrics of a connection.
+     */
+    private static class ConnectionMetrics {
+        /**
+         * Requests in flight on the connection, several with HTTP/2.
+         */
+        private final AtomicInteger inFlight = new AtomicInteger();
+        /**
+         * Connection pool, set when the connection joins it.
+         */
+        private volatile PoolMetrics pool;
+    }
+}
@@ -0,0 +1,27 @@
+package org.acme.phone.sector.api.client;
+
+import org.acme.phone.sector.model.PhoneSectorResponse;
+
+/**
+ * Backend to perform requests to external phone sector api.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public interface PhoneSectorBackend {
+    /**
+     * Get the backend name, used to select it by configuration.
+     *
+     * @return the backend name
+     */
+    String getName();
+
+    /**
+     * Get phone sector given the phone number.
+     *
+     * @param number the phone number to get the sector
+     * @return phone number and sector
+     * @throws Exception when the request fails
+     */
+    PhoneSectorResponse getByNumber(String number) throws Exception;
+}
@@ -0,0 +1,133 @@
+package org.acme.phone.sector.api.client;
+
+import org.acme.phone.sector.model.PhoneSectorResponse;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client to perform requests to external phone sector api, over the {@link PhoneSectorBackend} selected by
+ * configuration. Records the requests, failures, latency and in-flight requests per host.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class PhoneSectorClient {
+    /**
+     * Backend name, {@link RestClientPhoneSectorBackend#NAME} or {@link VertxPhoneSectorBackend#NAME}.
+     */
+    @ConfigProperty(name = "phone-sector-api.client.backend", defaultValue = RestClientPhoneSectorBackend.NAME)
+    private String backendName;
+
+    /**
+     * External phone sector api url.
+     */
+    @ConfigProperty(name = "phone-sector-api/mp-rest/url")
+    private Optional<String> url;
+
+    /**
+     * Rest client backend.
+     */
+    @Inject
+    private Instance<RestClientPhoneSectorBackend> restClientBackend;
+
+    /**
+     * Vertx web client backend.
+     */
+    @Inject
+    private Instance<VertxPhoneSectorBackend> vertxBackend;
+
+    /**
+     * Metric registry.
+     */
+    @Inject
+    private MetricRegistry registry;
+
+    /**
+     * Selected backend.
+     */
+    private PhoneSectorBackend backend;
+    /**
+     * Requests performed.
+     */
+    private Counter requests;
+    /**
+     * Requests failed.
+     */
+    private Counter failures;
+    /**
+     * Requests latency.
+     */
+    private Timer latency;
+    /**
+     * Requests in flight.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Selects the backend and registers its metrics.
+     */
+    @PostConstruct
+    void initialize() {
+        if (VertxPhoneSectorBackend.NAME.equals(backendName)) {
+            backend = vertxBackend.get();
+        } else if (RestClientPhoneSectorBackend.NAME.equals(backendName)) {
+            backend = restClientBackend.get();
+        } else {
+            throw new IllegalStateException("Unknown phone sector api client backend " + backendName + ".");
+        }
+
+        final Tag[] tags = {
+                new Tag("host", url.map(value -> URI.create(value).getAuthority()).orElse("unknown")),
+                new Tag("backend", backend.getName())
+        };
+        requests = registry.counter("phone-sector.upstream.requests", tags);
+        failures = registry.counter("phone-sector.upstream.failures", tags);
+        latency = registry.timer("phone-sector.upstream.latency", tags);
+        registry.register(
+                Metadata.builder()
+                        .withName("phone-sector.upstream.in-flight")
+                        .withDescription("Requests to the phone sector api waiting for a response.")
+                        .withType(MetricType.GAUGE)
+                        .build(),
+                (Gauge<Integer>) inFlight::get,
+                tags
+        );
+    }
+
+    /**
+     * Get phone sector given the phone number.
+     *
+     * @param number the phone number to get the sector
+     * @return phone number and sector
+     * @throws Exception when the request fails
+     */
+    public PhoneSectorResponse getByNumber(final String number) throws Exception {
+        requests.inc();
+        inFlight.incrementAndGet();
+        final Timer.Context context = latency.time();
+        try {
+            return backend.getByNumber(number);
+        } catch (final Exception e) {
+            failures.inc();
+            throw e;
+        } finally {
+            context.stop();
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.acme.phone.sector.api.client;
+
+import org.acme.phone.sector.api.PhoneService;
+import org.acme.phone.sector.model.PhoneSectorResponse;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Phone sector backend over the MicroProfile rest client {@link PhoneService}, with its default connection
+ * handling.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class RestClientPhoneSectorBackend implements PhoneSectorBackend {
+    /**
+     * Backend name.
+     */
+    public static final String NAME = "rest-client";
+
+    /**
+     * Rest client to external phone service.
+     */
+    @Inject
+    @RestClient
+    private PhoneService phoneService;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public PhoneSectorResponse getByNumber(final String number) {
+        return phoneService.getByNumber(number);
+    }
+}
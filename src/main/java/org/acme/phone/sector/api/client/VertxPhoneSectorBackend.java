@@ -0,0 +1,206 @@
+package org.acme.phone.sector.api.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.metrics.MetricsOptions;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.ext.web.client.HttpResponse;
+import io.vertx.mutiny.ext.web.client.WebClient;
+import org.acme.phone.sector.model.PhoneSectorResponse;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Phone sector backend over a vertx web client, with an explicitly sized connection pool, keep-alive and, when the
+ * external api supports it, HTTP/2 with several requests multiplexed on each connection. The connections open and
+ * idle, and the time requests wait for a pooled connection, are recorded per host.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class VertxPhoneSectorBackend implements PhoneSectorBackend {
+    /**
+     * Backend name.
+     */
+    public static final String NAME = "vertx";
+    /**
+     * Characters allowed in a path segment besides letters and digits, as in RFC 3986.
+     */
+    private static final String PATH_SEGMENT_CHARACTERS = "-._~!$&'()*+,;=:@";
+
+    /**
+     * External phone sector api url.
+     */
+    @ConfigProperty(name = "phone-sector-api/mp-rest/url")
+    private Optional<String> url;
+
+    /**
+     * Maximum number of HTTP/1.1 connections.
+     */
+    @ConfigProperty(name = "phone-sector-api.client.max-pool-size", defaultValue = "50")
+    private int maxPoolSize;
+
+    /**
+     * Whether connections are kept alive between requests.
+     */
+    @ConfigProperty(name = "phone-sector-api.client.keep-alive", defaultValue = "true")
+    private boolean keepAlive;
+
+    /**
+     * Time an idle connection is kept alive.
+     */
+    @ConfigProperty(name = "phone-sector-api.client.keep-alive-timeout", defaultValue = "60s")
+    private Duration keepAliveTimeout;
+
+    /**
+     * Whether HTTP/2 is used, negotiated with ALPN over TLS or upgraded from HTTP/1.1 in clear text.
+     */
+    @ConfigProperty(name = "phone-sector-api.client.http2", defaultValue = "false")
+    private boolean http2;
+
+    /**
+     * Maximum number of HTTP/2 connections.
+     */
+    @ConfigProperty(name = "phone-sector-api.client.http2-max-pool-size", defaultValue = "2")
+    private int http2MaxPoolSize;
+
+    /**
+     * Maximum number of concurrent requests on each HTTP/2 connection, -1 for the server limit.
+     */
+    @ConfigProperty(name = "phone-sector-api.client.http2-multiplexing-limit", defaultValue = "-1")
+    private int http2MultiplexingLimit;
+
+    /**
+     * Maximum time to connect to the external api.
+     */
+    @ConfigProperty(name = "phone-sector-api.client.connect-timeout", defaultValue = "2s")
+    private Duration connectTimeout;
+
+    /**
+     * Maximum time to wait for a response, including the time waiting for a pooled connection.
+     */
+    @ConfigProperty(name = "phone-sector-api.client.timeout", defaultValue = "5s")
+    private Duration timeout;
+
+    /**
+     * Metric registry.
+     */
+    @Inject
+    private MetricRegistry registry;
+
+    /**
+     * Object mapper to deserialize responses.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper(new JsonFactory());
+    /**
+     * Vertx instance the web client is created with, own so its connection pool metrics are recorded, see
+     * {@link ConnectionPoolMetrics}.
+     */
+    private Vertx vertx;
+    /**
+     * Web client.
+     */
+    private WebClient webClient;
+    /**
+     * Path of the external api url, prepended to the requests path.
+     */
+    private String basePath;
+
+    /**
+     * Creates the web client for the external api url, recording its connection pool metrics.
+     */
+    @PostConstruct
+    void initialize() {
+        final URI uri = URI.create(url.orElseThrow(() -> new IllegalStateException("Phone sector api url is not configured.")));
+        final boolean ssl = "https".equalsIgnoreCase(uri.getScheme());
+        final WebClientOptions options = new WebClientOptions()
+                .setDefaultHost(uri.getHost())
+                .setDefaultPort(uri.getPort() != -1 ? uri.getPort() : ssl ? 443 : 80)
+                .setSsl(ssl)
+                .setMaxPoolSize(maxPoolSize)
+                .setKeepAlive(keepAlive)
+                .setKeepAliveTimeout((int) keepAliveTimeout.getSeconds())
+                .setConnectTimeout((int) connectTimeout.toMillis());
+        if (http2) {
+            options.setProtocolVersion(HttpVersion.HTTP_2)
+                    .setUseAlpn(ssl)
+                    .setHttp2ClearTextUpgrade(!ssl)
+                    .setHttp2MaxPoolSize(http2MaxPoolSize)
+                    .setHttp2MultiplexingLimit(http2MultiplexingLimit);
+        }
+
+        vertx = Vertx.vertx(new VertxOptions()
+                .setMetricsOptions(new MetricsOptions()
+                        .setEnabled(true)
+                        .setFactory(new ConnectionPoolMetrics(registry, NAME))));
+        webClient = WebClient.create(vertx, options);
+        basePath = uri.getRawPath() != null ? uri.getRawPath().replaceAll("/+$", "") : "";
+    }
+
+    /**
+     * Closes the web client, its connections and vertx instance.
+     */
+    @PreDestroy
+    void close() {
+        if (webClient != null) {
+            webClient.close();
+        }
+        if (vertx != null) {
+            vertx.closeAndAwait();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public PhoneSectorResponse getByNumber(final String number) throws Exception {
+        final HttpResponse<Buffer> response = webClient.get(basePath + "/sector/" + encodePathSegment(number))
+                .putHeader("Accept", "application/json")
+                .timeout(timeout.toMillis())
+                .send()
+                .await().atMost(timeout);
+
+        if (response.statusCode() != 200) {
+            throw new Exception("Phone sector api responded with status " + response.statusCode() + ".");
+        }
+
+        return objectMapper.readValue(response.bodyAsString(), PhoneSectorResponse.class);
+    }
+
+    /**
+     * Encodes a value as a path segment, as the rest client encodes path parameters.
+     *
+     * @param value the value to encode
+     * @return the encoded value
+     */
+    private static String encodePathSegment(final String value) {
+        final StringBuilder buffer = new StringBuilder();
+        for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            final char c = (char) (b & 0xFF);
+            if (c < 128 && (Character.isLetterOrDigit(c) || PATH_SEGMENT_CHARACTERS.indexOf(c) != -1)) {
+                buffer.append(c);
+            } else {
+                buffer.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+
+        return buffer.toString();
+    }
+}
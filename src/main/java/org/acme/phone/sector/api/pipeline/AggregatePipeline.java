@@ -0,0 +1,481 @@
+package org.acme.phone.sector.api.pipeline;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.acme.phone.sector.api.analyzer.PhoneNumberAnalyzer;
+import org.acme.phone.sector.api.client.PhoneSectorClient;
+import org.acme.phone.sector.cache.PhoneCacheService;
+import org.acme.phone.sector.model.ImmutablePhoneData;
+import org.acme.phone.sector.model.ImmutablePhonesLookup;
+import org.acme.phone.sector.model.PhoneData;
+import org.acme.phone.sector.model.PhoneSectorResponse;
+import org.acme.phone.sector.model.PhonesLookup;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Aggregate pipeline. Numbers go through the validate, prefix match, cache lookup and sector fetch stages in
+ * batches, so batches of the same request, and of concurrent requests, are in different stages at the same time.
+ * Validate, prefix match and aggregate are CPU bound and run on a fork-join pool, cache lookup and sector fetch are
+ * I/O bound and run on their own thread pools. Each stage holds a bounded number of tasks, see
+ * {@link PipelineStage}.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class AggregatePipeline {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AggregatePipeline.class);
+    /**
+     * Maximum time to wait for the stages running tasks on shutdown, in milliseconds.
+     */
+    private static final long SHUTDOWN_TIMEOUT = 5000;
+
+    /**
+     * Numbers per batch.
+     */
+    @ConfigProperty(name = "phone-sector.pipeline.batch-size", defaultValue = "50")
+    private int batchSize;
+
+    /**
+     * Fork-join pool parallelism for CPU bound stages, 0 for the number of processors.
+     */
+    @ConfigProperty(name = "phone-sector.pipeline.cpu-parallelism", defaultValue = "0")
+    private int cpuParallelism;
+
+    /**
+     * Threads of the cache lookup stage.
+     */
+    @ConfigProperty(name = "phone-sector.pipeline.cache-lookup-threads", defaultValue = "8")
+    private int cacheLookupThreads;
+
+    /**
+     * Threads of the sector fetch stage.
+     */
+    @ConfigProperty(name = "phone-sector.pipeline.sector-fetch-threads", defaultValue = "64")
+    private int sectorFetchThreads;
+
+    /**
+     * Maximum number of tasks queued or running in each stage.
+     */
+    @ConfigProperty(name = "phone-sector.pipeline.queue-capacity", defaultValue = "256")
+    private int queueCapacity;
+
+    /**
+     * Phone number analyzer.
+     */
+    @Inject
+    private PhoneNumberAnalyzer analyzer;
+
+    /**
+     * Client to external phone service.
+     */
+    @Inject
+    private PhoneSectorClient phoneSectorClient;
+
+    /**
+     * Phone cache service to cache requests performed with {@link PhoneSectorClient}.
+     */
+    @Inject
+    private PhoneCacheService phoneCacheService;
+
+    /**
+     * Metric registry.
+     */
+    @Inject
+    private MetricRegistry registry;
+
+    /**
+     * Validate stage, gets the numbers canonical number.
+     */
+    private PipelineStage validateStage;
+    /**
+     * Prefix match stage, gets the numbers prefix.
+     */
+    private PipelineStage prefixMatchStage;
+    /**
+     * Cache lookup stage, gets the numbers data stored in the cache.
+     */
+    private PipelineStage cacheLookupStage;
+    /**
+     * Sector fetch stage, requests the numbers sector to the external api.
+     */
+    private PipelineStage sectorFetchStage;
+    /**
+     * Aggregate stage, aggregates the numbers data.
+     */
+    private PipelineStage aggregateStage;
+
+    /**
+     * Creates the pipeline stages. The stages threads run with the class loader of the application, as the threads
+     * serving requests do, whichever thread they are started from.
+     */
+    @PostConstruct
+    void initialize() {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final ForkJoinPool cpuPool = new ForkJoinPool(
+                cpuParallelism > 0 ? cpuParallelism : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setContextClassLoader(classLoader);
+                    return thread;
+                },
+                null,
+                false
+        );
+        validateStage = new PipelineStage("validate", cpuPool, queueCapacity, registry);
+        prefixMatchStage = new PipelineStage("prefix-match", cpuPool, queueCapacity, registry);
+        cacheLookupStage = new PipelineStage("cache-lookup", newThreadPool("cache-lookup", cacheLookupThreads, classLoader),
+                queueCapacity, registry);
+        sectorFetchStage = new PipelineStage("sector-fetch", newThreadPool("sector-fetch", sectorFetchThreads, classLoader),
+                queueCapacity, registry);
+        aggregateStage = new PipelineStage("aggregate", cpuPool, queueCapacity, registry);
+    }
+
+    /**
+     * Shuts down the pipeline stages.
+     *
+     * @throws InterruptedException when interrupted while waiting for the stages
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (final PipelineStage stage : new PipelineStage[]{validateStage, prefixMatchStage, cacheLookupStage, sectorFetchStage, aggregateStage}) {
+            stage.shutdown(SHUTDOWN_TIMEOUT);
+        }
+    }
+
+    /**
+     * Get {@link PhoneData} for each phone number provided. Numbers are split in batches and each batch goes through
+     * the pipeline stages: numbers that are not valid or without a known prefix are skipped, numbers previously
+     * requested to the external api (exist in the cache) use data stored, and the remaining numbers are requested to
+     * the external api, once per canonical number.
+     *
+     * @param numbers number to get {@link PhoneData}
+     * @return phones data, not complete if any request to the external api failed
+     */
+    public PhonesLookup getPhonesData(final List<String> numbers) {
+        final Map<String, CompletableFuture<PhoneData>> sectorFetches = new ConcurrentHashMap<>();
+        final List<CompletableFuture<PhonesLookup>> batches = new ArrayList<>();
+        for (int i = 0; i < numbers.size(); i += batchSize) {
+            final List<String> batch = numbers.subList(i, Math.min(i + batchSize, numbers.size()));
+            batches.add(validateStage.submit(() -> validate(batch))
+                    .thenCompose(candidates -> prefixMatchStage.submit(() -> matchPrefixes(candidates)))
+                    .thenCompose(candidates -> cacheLookupStage.submit(() -> lookup(candidates)))
+                    .thenCompose(lookup -> fetchSectors(lookup, sectorFetches)));
+        }
+
+        final List<PhoneData> phonesData = new ArrayList<>();
+        boolean complete = true;
+        for (final CompletableFuture<PhonesLookup> batch : batches) {
+            final PhonesLookup phonesLookup = batch.join();
+            phonesData.addAll(phonesLookup.phonesData());
+            complete &= phonesLookup.complete();
+        }
+
+        return ImmutablePhonesLookup.builder()
+                .phonesData(phonesData)
+                .complete(complete)
+                .build();
+    }
+
+    /**
+     * Aggregates {@link PhoneData} per prefix and per business sector, in the aggregate stage.
+     *
+     * @param phonesData phone numbers data to aggregate
+     * @return phones data aggregated per prefix and per business sector
+     */
+    public Map<String, Map<String, Integer>> aggregate(final List<PhoneData> phonesData) {
+        return aggregateStage.submit(() -> aggregatePhonesData(phonesData)).join();
+    }
+
+    /**
+     * Validate stage. Gets the canonical number of each valid number.
+     *
+     * @param numbers the numbers to validate
+     * @return the valid numbers
+     */
+    private List<PhoneCandidate> validate(final List<String> numbers) {
+        final List<PhoneCandidate> candidates = new ArrayList<>(numbers.size());
+        for (final String number : numbers) {
+            final String canonicalNumber = analyzer.getCanonicalNumber(number);
+            if (canonicalNumber == null) {
+                LOGGER.error("Phone number {} is not valid.", number);
+                continue;
+            }
+
+            candidates.add(new PhoneCandidate(number, canonicalNumber, null));
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Prefix match stage. Gets the prefix of each valid number.
+     *
+     * @param candidates the valid numbers
+     * @return the valid numbers with a known prefix
+     */
+    private List<PhoneCandidate> matchPrefixes(final List<PhoneCandidate> candidates) {
+        final List<PhoneCandidate> matched = new ArrayList<>(candidates.size());
+        for (final PhoneCandidate candidate : candidates) {
+            final String prefix = analyzer.getPrefix(candidate.canonicalNumber);
+            if (prefix != null) {
+                matched.add(new PhoneCandidate(candidate.number, candidate.canonicalNumber, prefix));
+            }
+        }
+
+        return matched;
+    }
+
+    /**
+     * Cache lookup stage. Gets the numbers data stored in the cache.
+     *
+     * @param candidates the numbers with a known prefix
+     * @return the numbers data found and the numbers missing
+     */
+    private CacheLookup lookup(final List<PhoneCandidate> candidates) {
+        final List<String> numbers = new ArrayList<>(candidates.size());
+        candidates.forEach(candidate -> numbers.add(candidate.number));
+
+        final Map<String, PhoneData> cachedPhonesData;
+        try {
+            cachedPhonesData = phoneCacheService.getPhones(numbers);
+        } catch (final JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        final CacheLookup lookup = new CacheLookup(candidates.size());
+        for (final PhoneCandidate candidate : candidates) {
+            final PhoneData phoneData = cachedPhonesData.get(candidate.number);
+            if (phoneData != null) {
+                lookup.phonesData.add(phoneData);
+            } else {
+                lookup.misses.add(candidate);
+            }
+        }
+
+        return lookup;
+    }
+
+    /**
+     * Submits the numbers missing in the cache to the sector fetch stage. Numbers already submitted by the same
+     * request share the same fetch.
+     *
+     * @param lookup        the cache lookup result
+     * @param sectorFetches the request sector fetches, by canonical number
+     * @return future completed with the numbers data, not complete if any request to the external api failed
+     */
+    private CompletableFuture<PhonesLookup> fetchSectors(final CacheLookup lookup,
+                                                         final Map<String, CompletableFuture<PhoneData>> sectorFetches) {
+        final List<CompletableFuture<PhoneData>> fetches = new ArrayList<>(lookup.misses.size());
+        for (final PhoneCandidate miss : lookup.misses) {
+            final CompletableFuture<PhoneData> fetch = new CompletableFuture<>();
+            final CompletableFuture<PhoneData> existing = sectorFetches.putIfAbsent(miss.canonicalNumber, fetch);
+            if (existing != null) {
+                fetches.add(existing);
+                continue;
+            }
+
+            sectorFetchStage.submit(() -> fetchSector(miss)).whenComplete((phoneData, failure) -> {
+                if (failure != null) {
+                    fetch.completeExceptionally(failure);
+                } else {
+                    fetch.complete(phoneData);
+                }
+            });
+            fetches.add(fetch);
+        }
+
+        return CompletableFuture.allOf(fetches.toArray(new CompletableFuture[0])).thenApply(done -> {
+            final List<PhoneData> phonesData = new ArrayList<>(lookup.phonesData);
+            for (final CompletableFuture<PhoneData> fetch : fetches) {
+                final PhoneData phoneData = fetch.join();
+                if (phoneData != null) {
+                    phonesData.add(phoneData);
+                }
+            }
+
+            return ImmutablePhonesLookup.builder()
+                    .phonesData(phonesData)
+                    .complete(phonesData.size() == lookup.candidates)
+                    .build();
+        });
+    }
+
+    /**
+     * Sector fetch stage. Requests a number sector to the external api and stores it in the cache.
+     *
+     * @param candidate the number missing in the cache
+     * @return the number data stored, or null if the request failed
+     */
+    private PhoneData fetchSector(final PhoneCandidate candidate) {
+        final PhoneSectorResponse response = handleGetSectorRequest(candidate.number);
+        if (response == null) {
+            return null;
+        }
+
+        final PhoneData phoneData = ImmutablePhoneData.builder()
+                .number(candidate.number)
+                .prefix(candidate.prefix)
+                .sector(response.sector())
+                .build();
+        try {
+            return phoneCacheService.setPhone(phoneData);
+        } catch (final JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Handler for {@link PhoneSectorClient#getByNumber(String)} to deal with exception during the request.
+     *
+     * @param number the number to request the sector
+     * @return phone sector response
+     */
+    private PhoneSectorResponse handleGetSectorRequest(final String number) {
+        try {
+            return phoneSectorClient.getByNumber(number);
+        } catch (final Exception e) {
+            LOGGER.error("Failed request to get number {} sector.", number, e);
+            return null;
+        }
+    }
+
+    /**
+     * Aggregates {@link PhoneData} per prefix and per business sector.
+     *
+     * @param phonesData phone numbers data to aggregate
+     * @return phones data aggregated per prefix and per business sector
+     */
+    private Map<String, Map<String, Integer>> aggregatePhonesData(final List<PhoneData> phonesData) {
+        final Map<String, Map<String, Integer>> response = new HashMap<>();
+        for (final PhoneData phoneData : phonesData) {
+            if (response.containsKey(phoneData.prefix())) {
+                final Map<String, Integer> sectors = response.get(phoneData.prefix());
+                if (sectors.containsKey(phoneData.sector())) {
+                    sectors.merge(
+                            phoneData.sector(),
+                            1,
+                            Integer::sum
+                    );
+                } else {
+                    sectors.put(
+                            phoneData.sector(),
+                            1
+                    );
+                }
+                continue;
+            }
+
+            final Map<String, Integer> sectors = new HashMap<String, Integer>() {{
+                put(phoneData.sector(), 1);
+            }};
+            response.put(
+                    phoneData.prefix(),
+                    sectors
+            );
+        }
+
+        return response;
+    }
+
+    /**
+     * Creates a fixed thread pool for an I/O bound stage.
+     *
+     * @param stage       the stage name, used in the threads name
+     * @param threads     number of threads
+     * @param classLoader class loader the threads run with
+     * @return the thread pool
+     */
+    private static ExecutorService newThreadPool(final String stage, final int threads, final ClassLoader classLoader) {
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "pipeline-" + stage + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        };
+
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    /**
+     * Phone number going through the pipeline.
+     */
+    private static class PhoneCandidate {
+        /**
+         * Number, as provided.
+         */
+        private final String number;
+        /**
+         * Canonical number.
+         */
+        private final String canonicalNumber;
+        /**
+         * Prefix, null until the prefix match stage.
+         */
+        private final String prefix;
+
+        /**
+         * Constructor.
+         *
+         * @param number          number, as provided
+         * @param canonicalNumber canonical number
+         * @param prefix          prefix
+         */
+        private PhoneCandidate(final String number, final String canonicalNumber, final String prefix) {
+            this.number = number;
+            this.canonicalNumber = canonicalNumber;
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * Cache lookup stage result.
+     */
+    private static class CacheLookup {
+        /**
+         * Number of numbers looked up.
+         */
+        private final int candidates;
+        /**
+         * Numbers data found in the cache.
+         */
+        private final List<PhoneData> phonesData = new ArrayList<>();
+        /**
+         * Numbers missing in the cache.
+         */
+        private final List<PhoneCandidate> misses = new ArrayList<>();
+
+        /**
+         * Constructor.
+         *
+         * @param candidates number of numbers looked up
+         */
+        private CacheLookup(final int candidates) {
+            this.candidates = candidates;
+        }
+    }
+}
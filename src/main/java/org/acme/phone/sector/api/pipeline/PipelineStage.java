@@ -0,0 +1,183 @@
+package org.acme.phone.sector.api.pipeline;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Meter;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Stage of the aggregate pipeline. Runs tasks on its own executor, with a bounded number of tasks queued or running:
+ * submitting a task to a full stage blocks until a task finishes, so a saturated stage slows down the stages that
+ * feed it. Blocking in a fork-join worker is managed, so the pool compensates with another worker instead of stalling
+ * the stages sharing it. Records the stage queue depth, throughput and blocked submissions.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class PipelineStage {
+    /**
+     * Stage name.
+     */
+    private final String name;
+    /**
+     * Executor running the stage tasks.
+     */
+    private final ExecutorService executor;
+    /**
+     * Maximum number of tasks queued or running.
+     */
+    private final int capacity;
+    /**
+     * Permits to queue a task, one per task queued or running.
+     */
+    private final Semaphore permits;
+    /**
+     * Tasks finished.
+     */
+    private final Meter throughput;
+    /**
+     * Submissions blocked because the stage was full.
+     */
+    private final Counter blocked;
+
+    /**
+     * Constructor.
+     *
+     * @param name     stage name
+     * @param executor executor running the stage tasks
+     * @param capacity maximum number of tasks queued or running
+     * @param registry metric registry to record the stage metrics
+     */
+    public PipelineStage(final String name, final ExecutorService executor, final int capacity,
+                         final MetricRegistry registry) {
+        this.name = name;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+
+        final Tag tag = new Tag("stage", name);
+        this.throughput = registry.meter("phone-sector.pipeline.throughput", tag);
+        this.blocked = registry.counter("phone-sector.pipeline.blocked", tag);
+        registry.register(
+                Metadata.builder()
+                        .withName("phone-sector.pipeline.queue-depth")
+                        .withDescription("Tasks queued or running in the aggregate pipeline stage.")
+                        .withType(MetricType.GAUGE)
+                        .build(),
+                (Gauge<Integer>) this::getQueueDepth,
+                tag
+        );
+    }
+
+    /**
+     * Submits a task to the stage, blocking while the stage is full.
+     *
+     * @param task the task
+     * @param <T>  the task result type
+     * @return future completed with the task result, after the task releases its place in the stage, or failed if
+     * interrupted while blocked
+     */
+    public <T> CompletableFuture<T> submit(final Supplier<T> task) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        if (!permits.tryAcquire()) {
+            blocked.inc();
+            try {
+                ForkJoinPool.managedBlock(new PermitBlocker());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+                return future;
+            }
+        }
+
+        try {
+            executor.execute(() -> {
+                final T result;
+                try {
+                    result = task.get();
+                } catch (final Throwable t) {
+                    permits.release();
+                    future.completeExceptionally(t);
+                    return;
+                }
+
+                permits.release();
+                throughput.mark();
+                future.complete(result);
+            });
+        } catch (final RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        return future;
+    }
+
+    /**
+     * Get the stage name.
+     *
+     * @return the stage name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of tasks queued or running.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return capacity - permits.availablePermits();
+    }
+
+    /**
+     * Shuts down the stage executor, waiting for the running tasks to finish.
+     *
+     * @param timeout maximum time to wait, in milliseconds
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public void shutdown(final long timeout) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Blocker acquiring a stage permit, managed by the fork-join pool when blocking one of its workers.
+     */
+    private class PermitBlocker implements ForkJoinPool.ManagedBlocker {
+        /**
+         * Whether the permit was acquired.
+         */
+        private boolean acquired;
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (!acquired) {
+                permits.acquire();
+                acquired = true;
+            }
+
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            if (!acquired) {
+                acquired = permits.tryAcquire();
+            }
+
+            return acquired;
+        }
+    }
+}
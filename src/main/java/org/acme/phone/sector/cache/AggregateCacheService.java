@@ -0,0 +1,197 @@
+package org.acme.phone.sector.cache;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.acme.phone.sector.api.analyzer.PhoneNumberAnalyzer;
+import org.acme.phone.sector.cache.local.AggregatesCache;
+import org.acme.phone.sector.model.ImmutablePhonesAggregate;
+import org.acme.phone.sector.model.PhonesAggregate;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service to manage phones aggregates in the {@link KeyValueStore} of the configured cache mode, redis by default.
+ * Aggregates are stored by the fingerprint of the aggregated numbers, so requests with the same numbers, in any order
+ * and format, share the same aggregate. Aggregates are kept in {@link AggregatesCache} in front of the store.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class AggregateCacheService {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AggregateCacheService.class);
+    /**
+     * Prefix of aggregate keys in the cache.
+     */
+    private static final String KEY_PREFIX = "aggregate:";
+    /**
+     * Hash algorithm used for fingerprints and entity tags.
+     */
+    private static final String HASH_ALGORITHM = "SHA-256";
+    /**
+     * Object mapper to serialize and deserialize, with map entries sorted so equal aggregates serialize equally.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper(new JsonFactory())
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    /**
+     * Time aggregates are kept, bounded by the expiration of the aggregated phones.
+     */
+    @ConfigProperty(name = "phone-sector.aggregate.ttl", defaultValue = "30s")
+    private Duration ttl;
+
+    /**
+     * Key-value store, redis or embedded.
+     */
+    @Inject
+    private KeyValueStore store;
+
+    /**
+     * Phone number analyzer, to get the canonical numbers used in fingerprints.
+     */
+    @Inject
+    private PhoneNumberAnalyzer analyzer;
+
+    /**
+     * Aggregates local cache.
+     */
+    @Inject
+    private AggregatesCache aggregatesCache;
+
+    /**
+     * Get the fingerprint of a list of numbers, the hash of their sorted canonical numbers. Numbers that are not
+     * valid are used as provided, so they may contain any character, and each number is prefixed with its length to
+     * keep distinct lists from hashing the same input.
+     *
+     * @param numbers the numbers
+     * @return the fingerprint
+     */
+    public String getFingerprint(final List<String> numbers) {
+        final List<String> canonicalNumbers = new ArrayList<>(numbers.size());
+        for (final String number : numbers) {
+            final String canonicalNumber = analyzer.getCanonicalNumber(number);
+            canonicalNumbers.add(canonicalNumber != null ? canonicalNumber : number);
+        }
+        Collections.sort(canonicalNumbers);
+
+        final StringBuilder buffer = new StringBuilder();
+        for (final String canonicalNumber : canonicalNumbers) {
+            buffer.append(canonicalNumber.length()).append(':').append(canonicalNumber);
+        }
+
+        return hash(buffer.toString());
+    }
+
+    /**
+     * Creates an aggregate, with its entity tag and expiration time. The aggregate expires no later than the first
+     * of its phones, so it is not served after the phones it counts expired.
+     *
+     * @param sectors        count of phones per prefix and per business sector
+     * @param phonesExpireAt time, in milliseconds, when the first of the aggregated phones expires
+     * @return the aggregate
+     * @throws JsonProcessingException when fails to serialize
+     */
+    public PhonesAggregate createAggregate(final Map<String, Map<String, Integer>> sectors,
+                                           final long phonesExpireAt) throws JsonProcessingException {
+        return ImmutablePhonesAggregate.builder()
+                .sectors(sectors)
+                .etag(hash(objectMapper.writeValueAsString(sectors)))
+                .expiresAt(Math.min(System.currentTimeMillis() + getAggregateTimeToLive().toMillis(), phonesExpireAt))
+                .build();
+    }
+
+    /**
+     * Get an aggregate, from the local cache or from the store. An aggregate that fails to deserialize is a miss, so it
+     * is aggregated and stored again.
+     *
+     * @param fingerprint the aggregated numbers fingerprint
+     * @return the aggregate, or null if it does not exist
+     */
+    public PhonesAggregate getAggregate(final String fingerprint) {
+        final PhonesAggregate cached = aggregatesCache.get(fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+
+        final String result = store.get(KEY_PREFIX + fingerprint);
+        if (result == null) {
+            return null;
+        }
+
+        final PhonesAggregate aggregate;
+        try {
+            aggregate = objectMapper.readValue(result, PhonesAggregate.class);
+        } catch (final JsonProcessingException e) {
+            LOGGER.warn("Failed to deserialize aggregate {}, aggregating again.", fingerprint, e);
+            return null;
+        }
+
+        aggregatesCache.put(fingerprint, aggregate);
+        return aggregate;
+    }
+
+    /**
+     * Set an aggregate in the local cache and in the store, until it expires.
+     *
+     * @param fingerprint the aggregated numbers fingerprint
+     * @param aggregate   the aggregate
+     * @throws JsonProcessingException when fails to serialize
+     */
+    public void setAggregate(final String fingerprint, final PhonesAggregate aggregate) throws JsonProcessingException {
+        final long timeToLive = (aggregate.expiresAt() - System.currentTimeMillis()) / 1000;
+        if (timeToLive <= 0) {
+            return;
+        }
+
+        aggregatesCache.put(fingerprint, aggregate);
+        store.setWithExpire(KEY_PREFIX + fingerprint, String.valueOf(timeToLive), objectMapper.writeValueAsString(aggregate));
+    }
+
+    /**
+     * Get the time aggregates are kept, the configured time bounded by the phone expiration time, for phones stored
+     * without their expiration time.
+     *
+     * @return the time to live
+     */
+    private Duration getAggregateTimeToLive() {
+        final Duration phoneExpirationTime = Duration.ofSeconds(PhoneCacheService.EXPIRATION_TIME);
+        return ttl.compareTo(phoneExpirationTime) < 0 ? ttl : phoneExpirationTime;
+    }
+
+    /**
+     * Hash a value into its hexadecimal digest.
+     *
+     * @param value the value to hash
+     * @return the hexadecimal digest
+     */
+    private static String hash(final String value) {
+        try {
+            final byte[] digest = MessageDigest.getInstance(HASH_ALGORITHM).digest(value.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder buffer = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                buffer.append(String.format("%02x", b));
+            }
+
+            return buffer.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Hash algorithm " + HASH_ALGORITHM + " is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.acme.phone.sector.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Key-value store backing the phones and aggregates caches, redis or embedded, selected by
+ * {@link KeyValueStoreProducer}.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public interface KeyValueStore {
+    /**
+     * Checks if a given key exists.
+     *
+     * @param key key to check if exists
+     * @return true if exists, false otherwise or when the store is unavailable
+     */
+    boolean keyExists(String key);
+
+    /**
+     * Get document given the key.
+     *
+     * @param key the key
+     * @return the document, or null if it does not exist or when the store is unavailable
+     */
+    String get(String key);
+
+    /**
+     * Get documents given several keys.
+     *
+     * @param keys the keys
+     * @return the documents found, by key. Keys that do not exist or are unavailable are absent
+     */
+    Map<String, String> getAll(Collection<String> keys);
+
+    /**
+     * Get the time until a document expires.
+     *
+     * @param key the key
+     * @return the time until expire, in seconds, -1 if it does not expire, -2 if it does not exist, or null when the
+     * store is unavailable
+     */
+    Long getTimeToLive(String key);
+
+    /**
+     * Get the time until several documents expire.
+     *
+     * @param keys the keys
+     * @return the time until expire, in seconds, -1 if it does not expire, -2 if it does not exist, by key. Keys that
+     * are unavailable are absent
+     */
+    Map<String, Long> getTimesToLive(Collection<String> keys);
+
+    /**
+     * Create document given the key and value and sets to expire. The document is not stored when the store is
+     * unavailable.
+     *
+     * @param key   the key
+     * @param time  the time until expire, in seconds
+     * @param value the value
+     */
+    void setWithExpire(String key, String time, String value);
+
+    /**
+     * Iterates over the keys matching a pattern.
+     *
+     * @param pattern  the keys glob-style pattern
+     * @param consumer consumer of the keys found
+     * @return true if every key was scanned, false if part of the store was unavailable and its keys were skipped
+     */
+    boolean scan(String pattern, Consumer<String> consumer);
+}
@@ -0,0 +1,164 @@
+package org.acme.phone.sector.cache;
+
+import io.quarkus.scheduler.Scheduled;
+import org.acme.phone.sector.cache.embedded.MappedKeyValueStore;
+import org.acme.phone.sector.cache.redis.RedisService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+/**
+ * Produces the {@link KeyValueStore} selected by configuration: redis, or an embedded {@link MappedKeyValueStore}
+ * for single node deployments without redis. The embedded store is periodically flushed to disk and compacted.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class KeyValueStoreProducer {
+    /**
+     * Redis cache mode.
+     */
+    public static final String REDIS_MODE = "redis";
+    /**
+     * Embedded cache mode.
+     */
+    public static final String EMBEDDED_MODE = "embedded";
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyValueStoreProducer.class);
+    /**
+     * Bytes per megabyte.
+     */
+    private static final long MEGABYTE = 1024 * 1024;
+
+    /**
+     * Cache mode, {@link #REDIS_MODE} or {@link #EMBEDDED_MODE}.
+     */
+    @ConfigProperty(name = "phone-sector.cache.mode", defaultValue = REDIS_MODE)
+    private String mode;
+
+    /**
+     * Embedded store file.
+     */
+    @ConfigProperty(name = "phone-sector.cache.embedded.path", defaultValue = "data/phone-sector.cache")
+    private String embeddedPath;
+
+    /**
+     * Initial size of the embedded store file, in megabytes.
+     */
+    @ConfigProperty(name = "phone-sector.cache.embedded.initial-size-mb", defaultValue = "64")
+    private int embeddedInitialSize;
+
+    /**
+     * Maximum size of the embedded store file, in megabytes.
+     */
+    @ConfigProperty(name = "phone-sector.cache.embedded.max-size-mb", defaultValue = "1024")
+    private int embeddedMaxSize;
+
+    /**
+     * Fraction of the embedded store file taken by replaced or expired documents above which it is compacted.
+     */
+    @ConfigProperty(name = "phone-sector.cache.embedded.compaction-threshold", defaultValue = "0.5")
+    private double compactionThreshold;
+
+    /**
+     * Redis service.
+     */
+    @Inject
+    private Instance<RedisService> redisService;
+
+    /**
+     * Embedded store, when in embedded mode.
+     */
+    private volatile MappedKeyValueStore embeddedStore;
+
+    /**
+     * Produces the key-value store of the configured cache mode.
+     *
+     * @return the key-value store
+     */
+    @Produces
+    @Singleton
+    KeyValueStore keyValueStore() {
+        if (EMBEDDED_MODE.equals(mode)) {
+            try {
+                embeddedStore = new MappedKeyValueStore(Paths.get(embeddedPath), toBytes(embeddedInitialSize),
+                        toBytes(embeddedMaxSize), compactionThreshold);
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to open embedded store " + embeddedPath + ".", e);
+            }
+
+            return embeddedStore;
+        } else if (REDIS_MODE.equals(mode)) {
+            return redisService.get();
+        }
+
+        throw new IllegalStateException("Unknown cache mode " + mode + ".");
+    }
+
+    /**
+     * Flushes the documents stored in the embedded store to disk.
+     */
+    @Scheduled(every = "{phone-sector.cache.embedded.flush-interval}")
+    void flushEmbeddedStore() {
+        final MappedKeyValueStore store = embeddedStore;
+        if (store != null) {
+            store.flush();
+        }
+    }
+
+    /**
+     * Compacts the embedded store when replaced or expired documents take more than the compaction threshold.
+     */
+    @Scheduled(every = "{phone-sector.cache.embedded.compaction-interval}")
+    void compactEmbeddedStore() {
+        final MappedKeyValueStore store = embeddedStore;
+        if (store == null || store.getGarbageRatio() <= compactionThreshold) {
+            return;
+        }
+
+        try {
+            store.compact();
+        } catch (final IOException e) {
+            LOGGER.error("Failed to compact embedded store {}.", embeddedPath, e);
+        }
+    }
+
+    /**
+     * Closes the embedded store.
+     */
+    @PreDestroy
+    void close() {
+        final MappedKeyValueStore store = embeddedStore;
+        if (store == null) {
+            return;
+        }
+
+        try {
+            store.close();
+        } catch (final IOException e) {
+            LOGGER.error("Failed to close embedded store {}.", embeddedPath, e);
+        }
+    }
+
+    /**
+     * Converts a size in megabytes to bytes, bounded by the maximum size of a mapped file.
+     *
+     * @param megabytes the size in megabytes
+     * @return the size in bytes
+     */
+    private static int toBytes(final int megabytes) {
+        return (int) Math.min(megabytes * MEGABYTE, Integer.MAX_VALUE);
+    }
+}
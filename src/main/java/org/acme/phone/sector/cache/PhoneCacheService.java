@@ -0,0 +1,197 @@
+package org.acme.phone.sector.cache;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.scheduler.Scheduled;
+import org.acme.phone.sector.api.analyzer.PhoneNumberAnalyzer;
+import org.acme.phone.sector.cache.local.BloomFilter;
+import org.acme.phone.sector.cache.local.PhonesAccessCache;
+import org.acme.phone.sector.cache.local.PhonesFilterCache;
+import org.acme.phone.sector.model.ImmutablePhoneData;
+import org.acme.phone.sector.model.PhoneData;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service to manage phone data in the {@link KeyValueStore} of the configured cache mode, redis by default. Phones are
+ * stored by canonical number, so the same phone written in different formats shares the same entry, and redis node in
+ * redis mode. Phones that were never stored are answered as missing by {@link PhonesFilterCache}, without a redis
+ * lookup.
+ * Expiration times are jittered, so phones stored together do not expire together.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class PhoneCacheService {
+    /**
+     * Expiration time of a phone number, in seconds. Set to 1 day.
+     */
+    public static final long EXPIRATION_TIME = 86400;
+    /**
+     * Prefix of phone keys in the cache.
+     */
+    private static final String KEY_PREFIX = "phone:";
+    /**
+     * Object mapper to serialize and deserialize
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper(new JsonFactory());
+
+    /**
+     * Key-value store, redis or embedded.
+     */
+    @Inject
+    private KeyValueStore store;
+
+    /**
+     * Phone number analyzer, to get the canonical number used as key.
+     */
+    @Inject
+    private PhoneNumberAnalyzer analyzer;
+
+    /**
+     * Filter of the phones stored in the cache.
+     */
+    @Inject
+    private PhonesFilterCache phonesFilterCache;
+
+    /**
+     * Accesses to the phones found in the cache.
+     */
+    @Inject
+    private PhonesAccessCache phonesAccessCache;
+
+    /**
+     * Fraction of the expiration time randomly taken off each phone expiration.
+     */
+    @ConfigProperty(name = "phone-sector.redis.expiration-jitter", defaultValue = "0.1")
+    private double expirationJitter;
+
+    /**
+     * Get phones data from the cache, with a single command per redis node in the cache mode.
+     *
+     * @param phones phone numbers
+     * @return the phones data found, by phone number. Phones that do not exist are absent
+     * @throws JsonProcessingException when fails to deserialize
+     */
+    public Map<String, PhoneData> getPhones(final Collection<String> phones) throws JsonProcessingException {
+        final Map<String, String> keys = new LinkedHashMap<>();
+        for (final String phone : phones) {
+            final String key = getKey(phone);
+            if (phonesFilterCache.mightContain(key)) {
+                keys.put(phone, key);
+            }
+        }
+
+        final Map<String, String> results = store.getAll(new HashSet<>(keys.values()));
+        final Map<String, PhoneData> phonesData = new HashMap<>();
+        for (final Map.Entry<String, String> entry : keys.entrySet()) {
+            final String result = results.get(entry.getValue());
+            if (result != null) {
+                final PhoneData phoneData = objectMapper.readValue(result, PhoneData.class);
+                phonesAccessCache.recordAccess(entry.getValue(), phoneData);
+                phonesData.put(entry.getKey(), phoneData);
+            } else {
+                phonesFilterCache.recordFalsePositive();
+            }
+        }
+
+        return phonesData;
+    }
+
+    /**
+     * Records accesses to phones served from a cached aggregate, for the phones already tracked.
+     *
+     * @param phones phone numbers
+     */
+    public void recordAccesses(final Collection<String> phones) {
+        for (final String phone : phones) {
+            phonesAccessCache.recordAccess(getKey(phone));
+        }
+    }
+
+    /**
+     * Get the time until a phone expires in the cache.
+     *
+     * @param phone phone number
+     * @return the time until expire, in seconds, negative if it does not exist, or null when the store is unavailable
+     */
+    public Long getPhoneTimeToLive(final String phone) {
+        return store.getTimeToLive(getKey(phone));
+    }
+
+    /**
+     * Get the time until several phones expire in the cache, with a single command per redis node in the cache mode.
+     *
+     * @param phones phone numbers
+     * @return the time until expire, in seconds, negative if it does not exist, by phone number. Phones whose store is
+     * unavailable are absent
+     */
+    public Map<String, Long> getPhonesTimeToLive(final Collection<String> phones) {
+        final Map<String, String> keys = new LinkedHashMap<>();
+        for (final String phone : phones) {
+            keys.put(phone, getKey(phone));
+        }
+
+        final Map<String, Long> results = store.getTimesToLive(new HashSet<>(keys.values()));
+        final Map<String, Long> timesToLive = new HashMap<>();
+        keys.forEach((phone, key) -> {
+            final Long timeToLive = results.get(key);
+            if (timeToLive != null) {
+                timesToLive.put(phone, timeToLive);
+            }
+        });
+
+        return timesToLive;
+    }
+
+    /**
+     * Set phone in the cache, to expire after {@link #EXPIRATION_TIME} minus a random jitter. The phone is stored with
+     * its expiration time, so phones found in the cache tell when they expire.
+     *
+     * @param phoneData phone data to set
+     * @return the phone data stored, with its expiration time
+     * @throws JsonProcessingException when fails to serialize
+     */
+    public PhoneData setPhone(final PhoneData phoneData) throws JsonProcessingException {
+        final long jitter = (long) (EXPIRATION_TIME * expirationJitter * ThreadLocalRandom.current().nextDouble());
+        final long timeToLive = EXPIRATION_TIME - jitter;
+        final PhoneData stored = ImmutablePhoneData.copyOf(phoneData)
+                .withExpiresAt(System.currentTimeMillis() + timeToLive * 1000);
+        final String key = getKey(stored.number());
+        store.setWithExpire(key, String.valueOf(timeToLive), objectMapper.writeValueAsString(stored));
+        phonesFilterCache.put(key);
+        return stored;
+    }
+
+    /**
+     * Rebuilds the phones filter from the phones stored in the cache, so expired phones age out of the filter.
+     */
+    @Scheduled(every = "{phone-sector.bloom.rebuild-interval}")
+    void rebuildPhonesFilter() {
+        final BloomFilter filter = phonesFilterCache.startRebuild();
+        if (filter != null) {
+            phonesFilterCache.finishRebuild(filter, store.scan(KEY_PREFIX + "*", filter::put));
+        }
+    }
+
+    /**
+     * Get the cache key of a phone number, based on its canonical number.
+     *
+     * @param phone phone number
+     * @return the cache key
+     */
+    private String getKey(final String phone) {
+        final String canonicalNumber = analyzer.getCanonicalNumber(phone);
+        return KEY_PREFIX + (canonicalNumber != null ? canonicalNumber : phone);
+    }
+}
@@ -0,0 +1,171 @@
+package org.acme.phone.sector.cache;
+
+import io.quarkus.scheduler.Scheduled;
+import org.acme.phone.sector.api.client.PhoneSectorClient;
+import org.acme.phone.sector.cache.local.PhonesAccessCache;
+import org.acme.phone.sector.model.ImmutablePhoneData;
+import org.acme.phone.sector.model.PhoneData;
+import org.acme.phone.sector.model.PhoneSectorResponse;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Refresh-ahead service for the most accessed phones. Periodically requests again to the external phone service
+ * the most accessed phones that are close to expire in the cache, so popular phones are refreshed before they miss.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class PhoneRefreshService {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhoneRefreshService.class);
+
+    /**
+     * Whether the most accessed phones are refreshed.
+     */
+    @ConfigProperty(name = "phone-sector.refresh.enabled", defaultValue = "true")
+    private boolean enabled;
+
+    /**
+     * Number of most accessed phones checked on each refresh.
+     */
+    @ConfigProperty(name = "phone-sector.refresh.hot-phones", defaultValue = "1000")
+    private int hotPhones;
+
+    /**
+     * Maximum number of requests to the external phone service on each refresh.
+     */
+    @ConfigProperty(name = "phone-sector.refresh.budget", defaultValue = "100")
+    private int budget;
+
+    /**
+     * Phones are refreshed when they expire in less than this window.
+     */
+    @ConfigProperty(name = "phone-sector.refresh.window", defaultValue = "1h")
+    private Duration window;
+
+    /**
+     * Client to external phone service.
+     */
+    @Inject
+    private PhoneSectorClient phoneSectorClient;
+
+    /**
+     * Phone cache service to store the refreshed phones.
+     */
+    @Inject
+    private PhoneCacheService phoneCacheService;
+
+    /**
+     * Accesses to the phones found in the cache.
+     */
+    @Inject
+    private PhonesAccessCache phonesAccessCache;
+
+    /**
+     * Whether a refresh is in progress.
+     */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Refreshes the most accessed phones, when enabled.
+     */
+    @Scheduled(every = "{phone-sector.refresh.interval}")
+    void refreshMostAccessedPhones() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    /**
+     * Refreshes the most accessed phones that expire within the refresh window, up to the refresh budget, and then
+     * decays the phones accesses.
+     *
+     * @return the phones data stored, or an empty list when a refresh is already in progress
+     */
+    public List<PhoneData> refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return Collections.emptyList();
+        }
+
+        try {
+            final List<PhoneData> refreshed = new ArrayList<>();
+            for (final PhoneData phoneData : getPhonesToRefresh()) {
+                final PhoneData stored = refreshPhone(phoneData);
+                if (stored != null) {
+                    refreshed.add(stored);
+                }
+            }
+
+            phonesAccessCache.decay();
+            LOGGER.debug("Refreshed {} most accessed phones.", refreshed.size());
+            return refreshed;
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Get the most accessed phones to refresh, the ones that expire within the refresh window or already expired, up
+     * to the refresh budget.
+     *
+     * @return the phones data to refresh, most accessed first
+     */
+    public List<PhoneData> getPhonesToRefresh() {
+        final List<PhoneData> mostAccessed = phonesAccessCache.getMostAccessed(hotPhones);
+        final Map<String, Long> timesToLive = phoneCacheService.getPhonesTimeToLive(mostAccessed.stream()
+                .map(PhoneData::number)
+                .collect(Collectors.toList()));
+
+        final List<PhoneData> phonesToRefresh = new ArrayList<>();
+        for (final PhoneData phoneData : mostAccessed) {
+            if (phonesToRefresh.size() >= budget) {
+                break;
+            }
+
+            // -1 is a phone stored without expiration, which never needs a refresh. -2 is a phone already expired or
+            // evicted, refreshed on purpose: it is still among the most accessed, so its next request would miss
+            final Long timeToLive = timesToLive.get(phoneData.number());
+            if (timeToLive == null || timeToLive == -1 || timeToLive > window.getSeconds()) {
+                continue;
+            }
+
+            phonesToRefresh.add(phoneData);
+        }
+
+        return phonesToRefresh;
+    }
+
+    /**
+     * Requests a phone sector to the external phone service and stores it in the cache.
+     *
+     * @param phoneData the phone data to refresh
+     * @return the phone data stored, with its new expiration time, or null if the request failed
+     */
+    private PhoneData refreshPhone(final PhoneData phoneData) {
+        try {
+            final PhoneSectorResponse response = phoneSectorClient.getByNumber(phoneData.number());
+            return phoneCacheService.setPhone(ImmutablePhoneData.builder()
+                    .from(phoneData)
+                    .sector(response.sector())
+                    .build());
+        } catch (final Exception e) {
+            LOGGER.error("Failed to refresh number {} sector.", phoneData.number(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,830 @@
+package org.acme.phone.sector.cache.embedded;
+
+import org.acme.phone.sector.cache.KeyValueStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded key-value store, kept in a memory-mapped file. Documents are appended to the file as checksummed records
+ * and an in-memory index keeps, for each key, the position of its latest record, so reads are memory reads of the
+ * mapped file. Expired documents are skipped on reads and dropped on compaction, which rewrites the live records to
+ * a new file that atomically replaces the current one.
+ * <p>
+ * Compaction copies the records live when it starts without holding the lock, so reads and appends go on meanwhile,
+ * and takes the write lock only to copy the records appended since and swap the files. One compaction runs at a time.
+ * <p>
+ * When the file reaches its maximum size, it is compacted only if replaced or expired documents take more than the
+ * compaction threshold, so each compaction frees at least that fraction of the file. The writer that finds it full
+ * compacts it after releasing the write lock and retries once, while other writers reject their documents until the
+ * compaction ends. Without enough garbage, new documents are rejected without compacting, and the garbage is checked
+ * again after {@link #FULL_CHECK_INTERVAL}.
+ * <p>
+ * On open, the records are read back to rebuild the index, up to the first record that is incomplete or does not
+ * match its checksum, and the file is truncated there, so a crash while writing loses at most the records not yet
+ * flushed.
+ * <p>
+ * Record layout: checksum (int), expiration time in epoch milliseconds (long), key length (int), value length (int),
+ * key and value in UTF-8.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class MappedKeyValueStore implements KeyValueStore, Closeable {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedKeyValueStore.class);
+    /**
+     * Value identifying the store files, at their start.
+     */
+    private static final int MAGIC = 0x50534b56;
+    /**
+     * Version of the file layout, after the magic value.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Size of the file header, magic value and version.
+     */
+    private static final int HEADER_SIZE = 8;
+    /**
+     * Size of the record fields before key and value.
+     */
+    private static final int RECORD_HEADER_SIZE = 20;
+    /**
+     * Suffix of the file the live records are written to on compaction.
+     */
+    private static final String COMPACTION_SUFFIX = ".compaction";
+    /**
+     * Size of the buffer used to read the records back on open.
+     */
+    private static final int RECOVERY_BUFFER_SIZE = 65536;
+    /**
+     * Time a full store rejects new documents before checking again if compacting frees enough room, in milliseconds.
+     */
+    private static final long FULL_CHECK_INTERVAL = 1000;
+
+    /**
+     * Store file.
+     */
+    private final Path path;
+    /**
+     * File the live records are written to on compaction.
+     */
+    private final Path compactionPath;
+    /**
+     * Initial size of the mapped file, in bytes.
+     */
+    private final int initialSize;
+    /**
+     * Maximum size of the mapped file, in bytes.
+     */
+    private final int maxSize;
+    /**
+     * Fraction of the file taken by replaced or expired documents above which a full store is compacted.
+     */
+    private final double compactionThreshold;
+    /**
+     * Lock guarding the index and the mapped file: reads share it, appends, the compaction swap and close take it
+     * exclusively.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Lock held during compaction, so one compaction runs at a time.
+     */
+    private final Lock compactionLock = new ReentrantLock();
+
+    /**
+     * Latest record of each key.
+     */
+    private Map<String, Entry> index = new HashMap<>();
+    /**
+     * Store file channel.
+     */
+    private FileChannel channel;
+    /**
+     * Mapped store file.
+     */
+    private MappedByteBuffer buffer;
+    /**
+     * Position where the next record is appended.
+     */
+    private int position;
+    /**
+     * Bytes of the records in the index.
+     */
+    private long indexedBytes;
+    /**
+     * Whether records were appended since the last flush.
+     */
+    private volatile boolean dirty;
+    /**
+     * Time until which a full store rejects new documents without checking its garbage, in epoch milliseconds.
+     */
+    private long fullUntil;
+    /**
+     * Whether the store was closed.
+     */
+    private boolean closed;
+
+    /**
+     * Constructor. Opens the store file, creating it if it does not exist, and rebuilds the index from its records.
+     *
+     * @param path                store file
+     * @param initialSize         initial size of the mapped file, in bytes
+     * @param maxSize             maximum size of the mapped file, in bytes
+     * @param compactionThreshold fraction of the file taken by replaced or expired documents above which a full store
+     *                            is compacted
+     * @throws IOException when the store file cannot be opened or is not a store file
+     */
+    public MappedKeyValueStore(final Path path, final int initialSize, final int maxSize,
+                               final double compactionThreshold) throws IOException {
+        if (initialSize <= HEADER_SIZE || maxSize < initialSize) {
+            throw new IllegalArgumentException("Invalid embedded store sizes " + initialSize + " and " + maxSize + ".");
+        }
+
+        this.path = path;
+        this.compactionPath = path.resolveSibling(path.getFileName() + COMPACTION_SUFFIX);
+        this.initialSize = initialSize;
+        this.maxSize = maxSize;
+        this.compactionThreshold = compactionThreshold;
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.deleteIfExists(compactionPath);
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        position = recover();
+        channel.truncate(position);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(initialSize, position));
+        if (position == HEADER_SIZE) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+        }
+
+        LOGGER.info("Opened embedded store {} with {} keys.", path, index.size());
+    }
+
+    @Override
+    public boolean keyExists(final String key) {
+        lock.readLock().lock();
+        try {
+            return getEntry(key, System.currentTimeMillis()) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String get(final String key) {
+        lock.readLock().lock();
+        try {
+            final Entry entry = getEntry(key, System.currentTimeMillis());
+            return entry != null ? readValue(entry) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, String> getAll(final Collection<String> keys) {
+        final Map<String, String> documents = new HashMap<>();
+        final long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            for (final String key : keys) {
+                final Entry entry = getEntry(key, now);
+                if (entry != null) {
+                    documents.put(key, readValue(entry));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return documents;
+    }
+
+    @Override
+    public Long getTimeToLive(final String key) {
+        final long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            final Entry entry = getEntry(key, now);
+            return entry != null ? (entry.expireAt - now + 999) / 1000 : -2L;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Long> getTimesToLive(final Collection<String> keys) {
+        final Map<String, Long> timesToLive = new HashMap<>();
+        final long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            for (final String key : keys) {
+                final Entry entry = getEntry(key, now);
+                timesToLive.put(key, entry != null ? (entry.expireAt - now + 999) / 1000 : -2L);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return timesToLive;
+    }
+
+    /**
+     * {@inheritDoc} The document is not stored when the store is full and compacting would not free enough room.
+     */
+    @Override
+    public void setWithExpire(final String key, final String time, final String value) {
+        final long expireAt = System.currentTimeMillis() + Long.parseLong(time) * 1000;
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        final int checksum = checksum(expireAt, keyBytes, valueBytes);
+        final long size = (long) RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+
+        try {
+            Append result = append(key, expireAt, keyBytes, valueBytes, checksum, size, true);
+            if (result == Append.COMPACTABLE && compactIfIdle()) {
+                result = append(key, expireAt, keyBytes, valueBytes, checksum, size, false);
+            }
+            if (result == Append.APPENDED) {
+                return;
+            }
+            LOGGER.warn("Embedded store {} is full, key {} was not stored.", path, key);
+        } catch (final IOException e) {
+            LOGGER.error("Failed to store key {} in embedded store {}.", key, path, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc} Patterns support the {@code *} and {@code ?} wildcards.
+     */
+    @Override
+    public boolean scan(final String pattern, final Consumer<String> consumer) {
+        final Pattern regex = toRegex(pattern);
+        final List<String> keys = new ArrayList<>();
+        final long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            index.forEach((key, entry) -> {
+                if (entry.expireAt > now && regex.matcher(key).matches()) {
+                    keys.add(key);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        keys.forEach(consumer);
+        return true;
+    }
+
+    /**
+     * Flushes the records appended since the last flush to disk.
+     */
+    public void flush() {
+        if (!dirty) {
+            return;
+        }
+
+        lock.readLock().lock();
+        try {
+            dirty = false;
+            buffer.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the fraction of the store file taken by records that were replaced or expired.
+     *
+     * @return the garbage ratio, between 0 and 1
+     */
+    public double getGarbageRatio() {
+        lock.readLock().lock();
+        try {
+            return getGarbageRatio(System.currentTimeMillis());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live records to a new file, which then atomically replaces the store file, waiting for a running
+     * compaction to end first. A crash during compaction leaves the store file untouched.
+     *
+     * @throws IOException when the new file cannot be written or replace the store file
+     */
+    public void compact() throws IOException {
+        compactionLock.lock();
+        try {
+            compactUnlocked();
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes and closes the store file, trimmed to its records, so it is reopened without truncation.
+     *
+     * @throws IOException when the store file fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.force();
+            channel.truncate(position);
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of keys in the store, including expired keys not yet compacted.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the records back from the store file to rebuild the index, up to the first record that is incomplete or
+     * does not match its checksum.
+     *
+     * @return the position after the last valid record
+     * @throws IOException when the store file cannot be read or is not a store file
+     */
+    private int recover() throws IOException {
+        final long fileSize = Math.min(channel.size(), Integer.MAX_VALUE);
+        if (fileSize < HEADER_SIZE) {
+            return HEADER_SIZE;
+        }
+
+        // not closed, as closing the stream closes the channel
+        final DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel.position(0)), RECOVERY_BUFFER_SIZE));
+        final int magic = input.readInt();
+        final int version = input.readInt();
+        if (magic == 0 && version == 0) {
+            return HEADER_SIZE;
+        }
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("File " + path + " is not an embedded store file.");
+        }
+
+        final long now = System.currentTimeMillis();
+        int offset = HEADER_SIZE;
+        try {
+            while (offset + RECORD_HEADER_SIZE <= fileSize) {
+                final int checksum = input.readInt();
+                final long expireAt = input.readLong();
+                final int keyLength = input.readInt();
+                final int valueLength = input.readInt();
+                final long size = (long) RECORD_HEADER_SIZE + keyLength + valueLength;
+                if (keyLength <= 0 || valueLength < 0 || offset + size > fileSize) {
+                    break;
+                }
+
+                final byte[] keyBytes = new byte[keyLength];
+                final byte[] valueBytes = new byte[valueLength];
+                input.readFully(keyBytes);
+                input.readFully(valueBytes);
+                if (checksum != checksum(expireAt, keyBytes, valueBytes)) {
+                    break;
+                }
+
+                final String key = new String(keyBytes, StandardCharsets.UTF_8);
+                if (expireAt > now) {
+                    index(key, new Entry(offset, (int) size, expireAt));
+                } else {
+                    final Entry replaced = index.remove(key);
+                    if (replaced != null) {
+                        indexedBytes -= replaced.size;
+                    }
+                }
+                offset += (int) size;
+            }
+        } catch (final EOFException e) {
+            // incomplete record, the file ends within it
+        }
+
+        if (offset < channel.size()) {
+            LOGGER.warn("Embedded store {} truncated at {} of {} bytes.", path, offset, channel.size());
+        }
+        return offset;
+    }
+
+    /**
+     * Appends a record, unless the store is full. A full store is worth compacting if replaced or expired documents
+     * take more than the compaction threshold; otherwise it rejects records without checking it again during
+     * {@link #FULL_CHECK_INTERVAL}.
+     *
+     * @param key         the key
+     * @param expireAt    expiration time, in epoch milliseconds
+     * @param keyBytes    key in UTF-8
+     * @param valueBytes  value in UTF-8
+     * @param checksum    record checksum
+     * @param size        record size
+     * @param compactable whether a full store worth compacting is reported instead of rejecting the record
+     * @return whether the record was appended, rejected, or rejected by a full store worth compacting
+     * @throws IOException when the store file fails to grow
+     */
+    private Append append(final String key, final long expireAt, final byte[] keyBytes, final byte[] valueBytes,
+                           final int checksum, final long size, final boolean compactable) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return Append.REJECTED;
+            }
+            if (position + size > maxSize) {
+                final long now = System.currentTimeMillis();
+                if (now < fullUntil) {
+                    return Append.REJECTED;
+                }
+                if (compactable && getGarbageRatio(now) > compactionThreshold) {
+                    return Append.COMPACTABLE;
+                }
+                fullUntil = now + FULL_CHECK_INTERVAL;
+                return Append.REJECTED;
+            }
+
+            if (position + size > buffer.capacity()) {
+                final long capacity = Math.min(Math.max((long) buffer.capacity() * 2, position + size), maxSize);
+                buffer.force();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+
+            final ByteBuffer record = ((ByteBuffer) buffer).duplicate();
+            record.position(position);
+            record.putInt(checksum)
+                    .putLong(expireAt)
+                    .putInt(keyBytes.length)
+                    .putInt(valueBytes.length)
+                    .put(keyBytes)
+                    .put(valueBytes);
+
+            index(key, new Entry(position, (int) size, expireAt));
+            position += (int) size;
+            dirty = true;
+            return Append.APPENDED;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts the store file, unless a compaction is already running.
+     *
+     * @return true if the store file was compacted, false if a compaction was already running
+     * @throws IOException when the new file cannot be written or replace the store file
+     */
+    private boolean compactIfIdle() throws IOException {
+        if (!compactionLock.tryLock()) {
+            return false;
+        }
+
+        try {
+            compactUnlocked();
+            return true;
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live records to a new file, which then atomically replaces the store file. Must be called holding
+     * the compaction lock and not the read or write locks.
+     * <p>
+     * The records live at the start are copied from the mapping of that time without holding the lock: records are
+     * never modified once appended, and an older mapping of the same file stays valid after the file grows. The write
+     * lock is taken only to copy the latest records of the keys appended since, then swap the files.
+     *
+     * @throws IOException when the new file cannot be written or replace the store file
+     */
+    private void compactUnlocked() throws IOException {
+        final Map<String, Entry> snapshot;
+        final MappedByteBuffer source;
+        final int snapshotPosition;
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            snapshot = new HashMap<>(index);
+            source = buffer;
+            snapshotPosition = position;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        final long now = System.currentTimeMillis();
+        final Map<String, Entry> compactedIndex = new HashMap<>();
+        try (FileChannel target = FileChannel.open(compactionPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            writeFully(target, header);
+
+            int offset = HEADER_SIZE;
+            for (final Map.Entry<String, Entry> indexEntry : snapshot.entrySet()) {
+                final Entry entry = indexEntry.getValue();
+                if (entry.expireAt > now) {
+                    offset = copy(source, entry, target, offset, indexEntry.getKey(), compactedIndex);
+                }
+            }
+            target.force(true);
+
+            lock.writeLock().lock();
+            try {
+                if (closed) {
+                    return;
+                }
+
+                for (final Map.Entry<String, Entry> indexEntry : index.entrySet()) {
+                    final Entry entry = indexEntry.getValue();
+                    if (entry.offset >= snapshotPosition) {
+                        offset = copy(buffer, entry, target, offset, indexEntry.getKey(), compactedIndex);
+                    }
+                }
+                target.force(true);
+                swap(compactedIndex, offset);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            Files.deleteIfExists(compactionPath);
+        }
+    }
+
+    /**
+     * Copies a record to the compaction file and indexes it there.
+     *
+     * @param source         the mapped file the record is in
+     * @param entry          the record entry
+     * @param target         the compaction file
+     * @param offset         the record position in the compaction file
+     * @param key            the record key
+     * @param compactedIndex the index of the compaction file
+     * @return the position after the record in the compaction file
+     * @throws IOException when the record cannot be written
+     */
+    private static int copy(final MappedByteBuffer source, final Entry entry, final FileChannel target,
+                            final int offset, final String key, final Map<String, Entry> compactedIndex)
+            throws IOException {
+        final ByteBuffer record = ((ByteBuffer) source).duplicate();
+        record.limit(entry.offset + entry.size).position(entry.offset);
+        writeFully(target, record);
+        compactedIndex.put(key, new Entry(offset, entry.size, entry.expireAt));
+        return offset + entry.size;
+    }
+
+    /**
+     * Replaces the store file with the compaction file and maps it. Must be called holding the write lock.
+     *
+     * @param compactedIndex the index of the compaction file
+     * @param size           the size of the records in the compaction file, header included
+     * @throws IOException when the compaction file cannot replace the store file
+     */
+    private void swap(final Map<String, Entry> compactedIndex, final int size) throws IOException {
+        final int capacity = buffer.capacity();
+        final int previousPosition = position;
+        Files.move(compactionPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        channel.close();
+
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, size));
+        index = compactedIndex;
+        position = size;
+        indexedBytes = 0;
+        for (final Entry entry : compactedIndex.values()) {
+            indexedBytes += entry.size;
+        }
+        dirty = false;
+
+        LOGGER.info("Compacted embedded store {} from {} to {} bytes.", path, previousPosition, size);
+    }
+
+    /**
+     * Flushes the directory of the store file to disk, so the file replacing it survives a crash. Platforms that
+     * cannot open or flush a directory are left to persist it on their own.
+     */
+    private void syncDirectory() {
+        final Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (final IOException e) {
+            LOGGER.debug("Failed to flush directory {} of embedded store {}.", directory, path, e);
+        }
+    }
+
+    /**
+     * Get the fraction of the store file taken by records that were replaced or expired. Must be called holding the
+     * lock.
+     *
+     * @param now current time, in epoch milliseconds
+     * @return the garbage ratio, between 0 and 1
+     */
+    private double getGarbageRatio(final long now) {
+        final long recordsBytes = position - HEADER_SIZE;
+        if (recordsBytes == 0) {
+            return 0;
+        }
+
+        long expiredBytes = 0;
+        for (final Entry entry : index.values()) {
+            if (entry.expireAt <= now) {
+                expiredBytes += entry.size;
+            }
+        }
+
+        return (double) (recordsBytes - indexedBytes + expiredBytes) / recordsBytes;
+    }
+
+    /**
+     * Get the entry of a key, if it has not expired.
+     *
+     * @param key the key
+     * @param now current time, in epoch milliseconds
+     * @return the entry, or null if it does not exist or expired
+     */
+    private Entry getEntry(final String key, final long now) {
+        final Entry entry = index.get(key);
+        return entry != null && entry.expireAt > now ? entry : null;
+    }
+
+    /**
+     * Reads the value of a record from the mapped file.
+     *
+     * @param entry the record entry
+     * @return the value
+     */
+    private String readValue(final Entry entry) {
+        final int keyLength = buffer.getInt(entry.offset + 12);
+        final byte[] valueBytes = new byte[entry.size - RECORD_HEADER_SIZE - keyLength];
+        final ByteBuffer record = ((ByteBuffer) buffer).duplicate();
+        record.position(entry.offset + RECORD_HEADER_SIZE + keyLength);
+        record.get(valueBytes);
+        return new String(valueBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sets the latest record of a key.
+     *
+     * @param key   the key
+     * @param entry the record entry
+     */
+    private void index(final String key, final Entry entry) {
+        final Entry replaced = index.put(key, entry);
+        if (replaced != null) {
+            indexedBytes -= replaced.size;
+        }
+        indexedBytes += entry.size;
+    }
+
+    /**
+     * Computes the checksum of a record.
+     *
+     * @param expireAt   expiration time, in epoch milliseconds
+     * @param keyBytes   key in UTF-8
+     * @param valueBytes value in UTF-8
+     * @return the checksum
+     */
+    private static int checksum(final long expireAt, final byte[] keyBytes, final byte[] valueBytes) {
+        final ByteBuffer fields = ByteBuffer.allocate(RECORD_HEADER_SIZE - 4)
+                .putLong(expireAt)
+                .putInt(keyBytes.length)
+                .putInt(valueBytes.length);
+        final CRC32 crc = new CRC32();
+        crc.update(fields.array());
+        crc.update(keyBytes);
+        crc.update(valueBytes);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Writes a buffer fully to a channel.
+     *
+     * @param channel the channel
+     * @param source  the buffer
+     * @throws IOException when the write fails
+     */
+    private static void writeFully(final FileChannel channel, final ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    /**
+     * Converts a glob-style pattern, with the {@code *} and {@code ?} wildcards, to a regular expression.
+     *
+     * @param pattern the glob-style pattern
+     * @return the regular expression
+     */
+    private static Pattern toRegex(final String pattern) {
+        final StringBuilder regex = new StringBuilder();
+        for (final char c : pattern.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * Outcome of appending a record.
+     */
+    private enum Append {
+        /**
+         * The record was appended.
+         */
+        APPENDED,
+        /**
+         * The record was rejected.
+         */
+        REJECTED,
+        /**
+         * The record was rejected by a full store worth compacting.
+         */
+        COMPACTABLE
+    }
+
+    /**
+     * Position, size and expiration time of the latest record of a key.
+     */
+    private static final class Entry {
+        /**
+         * Record position in the store file.
+         */
+        private final int offset;
+        /**
+         * Record size, in bytes.
+         */
+        private final int size;
+        /**
+         * Expiration time, in epoch milliseconds.
+         */
+        private final long expireAt;
+
+        /**
+         * Constructor.
+         *
+         * @param offset   record position in the store file
+         * @param size     record size, in bytes
+         * @param expireAt expiration time, in epoch milliseconds
+         */
+        private Entry(final int offset, final int size, final long expireAt) {
+            this.offset = offset;
+            this.size = size;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.acme.phone.sector.cache.local;
+
+import org.acme.phone.sector.model.PhonesAggregate;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Phones aggregates local cache. Keeps the most recently used aggregates until they expire.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class AggregatesCache {
+    /**
+     * Maximum number of aggregates kept, the least recently used are evicted first.
+     */
+    @ConfigProperty(name = "phone-sector.aggregate.local-entries", defaultValue = "10000")
+    private int maxEntries;
+
+    /**
+     * In-memory aggregates storage, by fingerprint.
+     */
+    private Map<String, PhonesAggregate> aggregates;
+
+    /**
+     * Creates the aggregates storage, bounded by the maximum number of aggregates.
+     */
+    @PostConstruct
+    void initialize() {
+        aggregates = Collections.synchronizedMap(new LinkedHashMap<String, PhonesAggregate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, PhonesAggregate> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Get an aggregate given its fingerprint.
+     *
+     * @param fingerprint the aggregated numbers fingerprint
+     * @return the aggregate, or null if it does not exist or expired
+     */
+    public PhonesAggregate get(final String fingerprint) {
+        final PhonesAggregate aggregate = aggregates.get(fingerprint);
+        if (aggregate == null || aggregate.expiresAt() > System.currentTimeMillis()) {
+            return aggregate;
+        }
+
+        aggregates.remove(fingerprint);
+        return null;
+    }
+
+    /**
+     * Put an aggregate, kept until it expires or is evicted.
+     *
+     * @param fingerprint the aggregated numbers fingerprint
+     * @param aggregate   the aggregate
+     */
+    public void put(final String fingerprint, final PhonesAggregate aggregate) {
+        aggregates.put(fingerprint, aggregate);
+    }
+}
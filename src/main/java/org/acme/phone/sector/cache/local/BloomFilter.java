@@ -0,0 +1,149 @@
+package org.acme.phone.sector.cache.local;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe Bloom filter of strings. A negative answer is definite, a positive answer may be a false positive
+ * with a probability bounded by the filter size and the number of values added.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class BloomFilter {
+    /**
+     * FNV-1a 64 bits offset basis.
+     */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    /**
+     * FNV-1a 64 bits prime.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Filter bits.
+     */
+    private final AtomicLongArray bits;
+    /**
+     * Number of bits of the filter.
+     */
+    private final long bitCount;
+    /**
+     * Number of hash functions, i.e. bits set per value.
+     */
+    private final int hashFunctions;
+
+    /**
+     * Constructor. Sizes the filter to keep the false positive probability under {@code falsePositiveProbability}
+     * until {@code expectedInsertions} values are added.
+     *
+     * @param expectedInsertions       expected number of values to add
+     * @param falsePositiveProbability desired false positive probability, between 0 and 1
+     */
+    public BloomFilter(final long expectedInsertions, final double falsePositiveProbability) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("Bloom filter expected insertions must be positive.");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("Bloom filter false positive probability must be between 0 and 1.");
+        }
+
+        final double optimalBits = -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        final int words = (int) Math.min(Integer.MAX_VALUE, (long) Math.ceil(optimalBits / Long.SIZE));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Add a value to the filter.
+     *
+     * @param value the value to add
+     */
+    public void put(final String value) {
+        final long hash1 = hash(value);
+        final long hash2 = mix(hash1 ^ FNV_PRIME);
+        for (int i = 0; i < hashFunctions; i++) {
+            final long index = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            final int word = (int) (index >>> 6);
+            final long mask = 1L << index;
+
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * Checks if a value might have been added to the filter.
+     *
+     * @param value the value to check
+     * @return false if the value was never added, true if it might have been added
+     */
+    public boolean mightContain(final String value) {
+        final long hash1 = hash(value);
+        final long hash2 = mix(hash1 ^ FNV_PRIME);
+        for (int i = 0; i < hashFunctions; i++) {
+            final long index = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the current false positive probability, based on the fraction of bits set.
+     *
+     * @return the false positive probability
+     */
+    public double getFalsePositiveProbability() {
+        long setBits = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            setBits += Long.bitCount(bits.get(i));
+        }
+
+        return Math.pow((double) setBits / bitCount, hashFunctions);
+    }
+
+    /**
+     * Get the memory used by the filter bits.
+     *
+     * @return the memory used, in bytes
+     */
+    public long getSizeInBytes() {
+        return bitCount / Byte.SIZE;
+    }
+
+    /**
+     * Hash a value with FNV-1a 64 bits, mixed to spread the bits.
+     *
+     * @param value the value to hash
+     * @return the hash
+     */
+    private static long hash(final String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return mix(hash);
+    }
+
+    /**
+     * Murmur3 64 bits finalizer, so every input bit affects every output bit.
+     *
+     * @param value the value to mix
+     * @return the mixed value
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
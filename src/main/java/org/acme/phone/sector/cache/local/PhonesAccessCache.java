@@ -0,0 +1,101 @@
+package org.acme.phone.sector.cache.local;
+
+import org.acme.phone.sector.model.PhoneData;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.inject.Singleton;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Phones access frequency local cache. Counts the accesses to each phone found in the cache, with counts halved on each
+ * decay so the most accessed phones reflect recent traffic.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class PhonesAccessCache {
+    /**
+     * Maximum number of phones tracked. Phones accessed while the limit is reached are not tracked until a decay
+     * drops the least accessed ones.
+     */
+    @ConfigProperty(name = "phone-sector.refresh.tracked-phones", defaultValue = "100000")
+    private int trackedPhones;
+
+    /**
+     * Phones accesses, by phone cache key.
+     */
+    private final Map<String, PhoneAccess> accesses = new ConcurrentHashMap<>();
+
+    /**
+     * Records an access to a phone.
+     *
+     * @param key       the phone cache key
+     * @param phoneData the phone data accessed
+     */
+    public void recordAccess(final String key, final PhoneData phoneData) {
+        PhoneAccess access = accesses.get(key);
+        if (access == null) {
+            if (accesses.size() >= trackedPhones) {
+                return;
+            }
+            access = accesses.computeIfAbsent(key, k -> new PhoneAccess());
+        }
+
+        access.phoneData = phoneData;
+        access.count.incrementAndGet();
+    }
+
+    /**
+     * Records an access to a phone already tracked, served without its data, as from a cached aggregate. Phones are
+     * only tracked from an access with their data, so phones only ever served from aggregates are not tracked.
+     *
+     * @param key the phone cache key
+     */
+    public void recordAccess(final String key) {
+        final PhoneAccess access = accesses.get(key);
+        if (access != null) {
+            access.count.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the most accessed phones, most accessed first.
+     *
+     * @param limit maximum number of phones to return
+     * @return the phones data
+     */
+    public List<PhoneData> getMostAccessed(final int limit) {
+        return accesses.values().stream()
+                .sorted(Comparator.comparingLong((PhoneAccess access) -> access.count.get()).reversed())
+                .limit(limit)
+                .map(access -> access.phoneData)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Halves the accesses count of every phone, dropping phones no longer accessed.
+     */
+    public void decay() {
+        accesses.values().removeIf(access -> access.count.updateAndGet(count -> count / 2) == 0);
+    }
+
+    /**
+     * Accesses to a phone.
+     */
+    private static class PhoneAccess {
+        /**
+         * Number of accesses.
+         */
+        private final AtomicLong count = new AtomicLong();
+        /**
+         * Last phone data accessed.
+         */
+        private volatile PhoneData phoneData;
+    }
+}
@@ -0,0 +1,247 @@
+package org.acme.phone.sector.cache.local;
+
+import org.acme.phone.sector.cache.KeyValueStoreProducer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Phones membership local cache. Keeps a {@link BloomFilter} of the phones stored in the cache, so phones that
+ * were never stored are known to be missing without a cache lookup. The filter is rebuilt periodically from the
+ * phones in the cache, dropping the ones that expired meanwhile.
+ * <p>
+ * The filter is disabled in embedded cache mode: lookups are then memory reads of the local store, as cheap as the
+ * filter, and rebuilding it would only add a scan of the store.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Singleton
+public class PhonesFilterCache {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhonesFilterCache.class);
+
+    /**
+     * Whether the filter is used to skip cache lookups.
+     */
+    @ConfigProperty(name = "phone-sector.bloom.enabled", defaultValue = "true")
+    private boolean enabled;
+
+    /**
+     * Cache mode, the filter is disabled in {@link KeyValueStoreProducer#EMBEDDED_MODE}.
+     */
+    @ConfigProperty(name = "phone-sector.cache.mode", defaultValue = KeyValueStoreProducer.REDIS_MODE)
+    private String cacheMode;
+
+    /**
+     * Expected number of phones stored in the cache.
+     */
+    @ConfigProperty(name = "phone-sector.bloom.expected-insertions", defaultValue = "1000000")
+    private long expectedInsertions;
+
+    /**
+     * Desired false positive probability.
+     */
+    @ConfigProperty(name = "phone-sector.bloom.false-positive-probability", defaultValue = "0.01")
+    private double falsePositiveProbability;
+
+    /**
+     * Metric registry.
+     */
+    @Inject
+    private MetricRegistry registry;
+
+    /**
+     * Filter used to answer lookups, null until the first rebuild completes.
+     */
+    private volatile BloomFilter filter;
+    /**
+     * Filter being rebuilt, null when no rebuild is in progress.
+     */
+    private final AtomicReference<BloomFilter> rebuildingFilter = new AtomicReference<>();
+    /**
+     * Lock guarding the swap of the rebuilt filter: puts share it, finishing a rebuild takes it exclusively, so a put
+     * adds its phone to the filter that replaces the current one.
+     */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    /**
+     * Lookups answered as definite misses.
+     */
+    private Counter negatives;
+    /**
+     * Lookups answered as possible hits that were missing in the cache.
+     */
+    private Counter falsePositives;
+
+    /**
+     * Disables the filter in embedded cache mode, and registers the filter metrics.
+     */
+    @PostConstruct
+    void init() {
+        if (enabled && KeyValueStoreProducer.EMBEDDED_MODE.equals(cacheMode)) {
+            enabled = false;
+            LOGGER.info("Phones filter disabled in embedded cache mode.");
+        }
+
+        negatives = registry.counter("phone-sector.bloom.negatives");
+        falsePositives = registry.counter("phone-sector.bloom.false-positives");
+
+        registry.register(
+                Metadata.builder()
+                        .withName("phone-sector.bloom.memory")
+                        .withDescription("Memory used by the phones filters.")
+                        .withType(MetricType.GAUGE)
+                        .withUnit(MetricUnits.BYTES)
+                        .build(),
+                (Gauge<Long>) this::getSizeInBytes
+        );
+        registry.register(
+                Metadata.builder()
+                        .withName("phone-sector.bloom.false-positive-rate")
+                        .withDescription("Observed rate of missing phones the filter did not exclude.")
+                        .withType(MetricType.GAUGE)
+                        .build(),
+                (Gauge<Double>) this::getFalsePositiveRate
+        );
+        registry.register(
+                Metadata.builder()
+                        .withName("phone-sector.bloom.expected-false-positive-probability")
+                        .withDescription("False positive probability of the phones filter, given its bits set.")
+                        .withType(MetricType.GAUGE)
+                        .build(),
+                (Gauge<Double>) this::getExpectedFalsePositiveProbability
+        );
+    }
+
+    /**
+     * Checks if a phone might be stored in the cache. Before the first rebuild completes, every phone might be stored.
+     *
+     * @param key the phone cache key
+     * @return false if the phone is definitely not stored, true otherwise
+     */
+    public boolean mightContain(final String key) {
+        final BloomFilter current = filter;
+        if (!enabled || current == null || current.mightContain(key)) {
+            return true;
+        }
+
+        negatives.inc();
+        return false;
+    }
+
+    /**
+     * Records that a phone the filter might contain was missing in the cache.
+     */
+    public void recordFalsePositive() {
+        if (enabled && filter != null) {
+            falsePositives.inc();
+        }
+    }
+
+    /**
+     * Adds a phone stored in the cache to the filter, and to the filter being rebuilt if any.
+     *
+     * @param key the phone cache key
+     */
+    public void put(final String key) {
+        swapLock.readLock().lock();
+        try {
+            final BloomFilter current = filter;
+            if (current != null) {
+                current.put(key);
+            }
+
+            final BloomFilter rebuilding = rebuildingFilter.get();
+            if (rebuilding != null) {
+                rebuilding.put(key);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts a filter rebuild. Phones stored in the cache must be added to the returned filter, and then the rebuild
+     * finished with {@link #finishRebuild(BloomFilter, boolean)}.
+     *
+     * @return the filter to rebuild, or null if the filter is disabled or a rebuild is already in progress
+     */
+    public BloomFilter startRebuild() {
+        if (!enabled) {
+            return null;
+        }
+
+        final BloomFilter rebuilding = new BloomFilter(expectedInsertions, falsePositiveProbability);
+        return rebuildingFilter.compareAndSet(null, rebuilding) ? rebuilding : null;
+    }
+
+    /**
+     * Finishes a filter rebuild. A complete filter replaces the current one, an incomplete filter is discarded.
+     *
+     * @param rebuilding the filter returned by {@link #startRebuild()}
+     * @param complete   whether every phone stored in the cache was added
+     */
+    public void finishRebuild(final BloomFilter rebuilding, final boolean complete) {
+        swapLock.writeLock().lock();
+        try {
+            if (complete) {
+                filter = rebuilding;
+            }
+            rebuildingFilter.compareAndSet(rebuilding, null);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        if (complete) {
+            LOGGER.info("Rebuilt phones filter, false positive probability {}.", rebuilding.getFalsePositiveProbability());
+        } else {
+            LOGGER.warn("Failed to rebuild phones filter, keeping the previous filter.");
+        }
+    }
+
+    /**
+     * Get the memory used by the filters.
+     *
+     * @return the memory used, in bytes
+     */
+    private long getSizeInBytes() {
+        final BloomFilter current = filter;
+        final BloomFilter rebuilding = rebuildingFilter.get();
+        return (current != null ? current.getSizeInBytes() : 0) + (rebuilding != null ? rebuilding.getSizeInBytes() : 0);
+    }
+
+    /**
+     * Get the observed false positive rate, the fraction of missing phones the filter did not exclude.
+     *
+     * @return the false positive rate
+     */
+    private double getFalsePositiveRate() {
+        final long missing = falsePositives.getCount() + negatives.getCount();
+        return missing > 0 ? (double) falsePositives.getCount() / missing : 0;
+    }
+
+    /**
+     * Get the false positive probability of the filter, given its bits set.
+     *
+     * @return the false positive probability
+     */
+    private double getExpectedFalsePositiveProbability() {
+        final BloomFilter current = filter;
+        return current != null ? current.getFalsePositiveProbability() : 0;
+    }
+}
@@ -0,0 +1,86 @@
+package org.acme.phone.sector.cache.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring. Each node is placed on the ring several times (virtual nodes) so keys are spread evenly,
+ * and adding or removing a node only remaps the keys that belonged to that node.
+ *
+ * @param <T> the node type
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class ConsistentHashRing<T> {
+    /**
+     * Hash algorithm used to place nodes and keys on the ring.
+     */
+    private static final String HASH_ALGORITHM = "MD5";
+    /**
+     * Message digest per thread, since {@link MessageDigest} is not thread safe.
+     */
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Hash algorithm " + HASH_ALGORITHM + " is not available.", e);
+        }
+    });
+
+    /**
+     * Ring positions mapped to the node that owns them.
+     */
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param nodes        nodes to place on the ring, by name
+     * @param virtualNodes number of positions each node takes on the ring
+     */
+    public ConsistentHashRing(final Map<String, T> nodes, final int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Consistent hash ring requires at least one node.");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Consistent hash ring requires at least one virtual node per node.");
+        }
+
+        nodes.forEach((name, node) -> {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(name + "#" + i), node);
+            }
+        });
+    }
+
+    /**
+     * Get the node that owns the given key, the first node found clockwise from the key position.
+     *
+     * @param key the key
+     * @return the node that owns {@code key}
+     */
+    public T getNode(final String key) {
+        final SortedMap<Long, T> tail = ring.tailMap(hash(key));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    /**
+     * Hash a value into a ring position, using the first 8 bytes of its digest.
+     *
+     * @param value the value to hash
+     * @return the ring position
+     */
+    private static long hash(final String value) {
+        final byte[] digest = DIGEST.get().digest(value.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+
+        return hash;
+    }
+}
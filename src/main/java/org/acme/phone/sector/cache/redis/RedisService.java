@@ -1,53 +1,278 @@
 package org.acme.phone.sector.cache.redis;
 
-import io.quarkus.redis.client.RedisClient;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.redis.client.Response;
+import org.acme.phone.sector.cache.KeyValueStore;
+import org.acme.phone.sector.cache.KeyValueStoreProducer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.inject.Typed;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
- * Redis service, responsible to interact with redis client.
+ * Redis service, responsible to interact with redis. Keys are sharded across the configured redis nodes with
+ * consistent hashing, and a node outage is handled as a cache miss. Only injectable as {@link RedisService}, the
+ * {@link KeyValueStore} of the configured cache mode is produced by {@link KeyValueStoreProducer}.
  *
  * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
  * @since 1.0.0
  */
 @Singleton
-public class RedisService {
+@Typed(RedisService.class)
+public class RedisService implements KeyValueStore {
     /**
-     * Redis client.
+     * Number of keys each scan iteration asks a redis node for.
+     */
+    private static final String SCAN_COUNT = "1000";
+    /**
+     * Script replying the time to live of every key it is given, so a redis node answers them in a single command.
+     */
+    private static final String TTL_SCRIPT = "local ttls = {} "
+            + "for i, key in ipairs(KEYS) do ttls[i] = redis.call('TTL', key) end "
+            + "return ttls";
+
+    /**
+     * Redis nodes endpoints to shard keys across.
+     */
+    @ConfigProperty(name = "phone-sector.redis.shards")
+    private List<String> shardEndpoints;
+
+    /**
+     * Number of positions each redis node takes on the hash ring.
+     */
+    @ConfigProperty(name = "phone-sector.redis.virtual-nodes", defaultValue = "160")
+    private int virtualNodes;
+
+    /**
+     * Maximum time to wait for a redis command.
+     */
+    @ConfigProperty(name = "quarkus.redis.timeout", defaultValue = "1s")
+    private Duration timeout;
+
+    /**
+     * Time a redis node is considered unavailable after a failure.
+     */
+    @ConfigProperty(name = "phone-sector.redis.shard-retry-interval", defaultValue = "5s")
+    private Duration shardRetryInterval;
+
+    /**
+     * Number of consecutive command timeouts after which a redis node is considered unavailable.
+     */
+    @ConfigProperty(name = "phone-sector.redis.shard-timeout-threshold", defaultValue = "3")
+    private int shardTimeoutThreshold;
+
+    /**
+     * Vertx instance used to create the redis clients.
      */
     @Inject
-    private RedisClient redisClient;
+    private Vertx vertx;
+
+    /**
+     * Redis nodes.
+     */
+    private final List<RedisShard> shards = new ArrayList<>();
+    /**
+     * Hash ring to find the redis node that owns a key.
+     */
+    private ConsistentHashRing<RedisShard> ring;
+
+    /**
+     * Creates the redis nodes and places them on the hash ring.
+     */
+    @PostConstruct
+    void initialize() {
+        final Map<String, RedisShard> nodes = new LinkedHashMap<>();
+        for (final String endpoint : shardEndpoints) {
+            final RedisShard shard = new RedisShard(vertx, endpoint.trim(), timeout, shardRetryInterval,
+                    shardTimeoutThreshold);
+            nodes.put(shard.getEndpoint(), shard);
+            shards.add(shard);
+        }
+
+        ring = new ConsistentHashRing<>(nodes, virtualNodes);
+    }
+
+    /**
+     * Closes the connections to the redis nodes.
+     */
+    @PreDestroy
+    void close() {
+        shards.forEach(RedisShard::close);
+    }
 
     /**
      * Checks if a given key exists in redis.
      *
      * @param key key to check if exists
-     * @return true if exists, false otherwise
+     * @return true if exists, false otherwise or when the key redis node is unavailable
      */
+    @Override
     public boolean keyExists(final String key) {
-        return redisClient.exists(Collections.singletonList(key)).toBoolean();
+        final Response response = ring.getNode(key).execute(api -> api.exists(Collections.singletonList(key)));
+        return response != null && response.toBoolean();
     }
 
     /**
      * Get document given the key.
      *
      * @param key the redis key
-     * @return the response
+     * @return the response, or null if it does not exist or when the key redis node is unavailable
      */
+    @Override
     public String get(final String key) {
-        return redisClient.get(key).toString();
+        final Response response = ring.getNode(key).execute(api -> api.get(key));
+        return response != null ? response.toString() : null;
     }
 
     /**
-     * Create document given the key and value and sets to expire.
+     * Get documents given several keys. Keys are grouped by redis node and each node receives a single command,
+     * with all nodes queried at the same time.
+     *
+     * @param keys the redis keys
+     * @return the documents found, by key. Keys that do not exist or whose redis node is unavailable are absent
+     */
+    @Override
+    public Map<String, String> getAll(final Collection<String> keys) {
+        final Map<RedisShard, List<String>> keysPerShard = getKeysPerShard(keys);
+
+        final Map<RedisShard, CompletableFuture<Response>> requests = new HashMap<>();
+        keysPerShard.forEach((shard, shardKeys) -> requests.put(shard, shard.executeAsync(api -> api.mget(shardKeys))));
+
+        final Map<String, String> documents = new HashMap<>();
+        keysPerShard.forEach((shard, shardKeys) -> {
+            final Response response = requests.get(shard).join();
+            if (response == null) {
+                return;
+            }
+
+            for (int i = 0; i < shardKeys.size(); i++) {
+                final Response value = response.get(i);
+                if (value != null) {
+                    documents.put(shardKeys.get(i), value.toString());
+                }
+            }
+        });
+
+        return documents;
+    }
+
+    /**
+     * Get the time until a document expires.
+     *
+     * @param key the redis key
+     * @return the time until expire, in seconds, -1 if it does not expire, -2 if it does not exist, or null when the
+     * key redis node is unavailable
+     */
+    @Override
+    public Long getTimeToLive(final String key) {
+        final Response response = ring.getNode(key).execute(api -> api.ttl(key));
+        return response != null ? response.toLong() : null;
+    }
+
+    /**
+     * Get the time until several documents expire. Keys are grouped by redis node and each node receives a single
+     * script, with all nodes queried at the same time.
+     *
+     * @param keys the redis keys
+     * @return the time until expire, in seconds, -1 if it does not expire, -2 if it does not exist, by key. Keys whose
+     * redis node is unavailable are absent
+     */
+    @Override
+    public Map<String, Long> getTimesToLive(final Collection<String> keys) {
+        final Map<RedisShard, List<String>> keysPerShard = getKeysPerShard(keys);
+
+        final Map<RedisShard, CompletableFuture<Response>> requests = new HashMap<>();
+        keysPerShard.forEach((shard, shardKeys) -> {
+            final List<String> args = new ArrayList<>(shardKeys.size() + 2);
+            args.add(TTL_SCRIPT);
+            args.add(String.valueOf(shardKeys.size()));
+            args.addAll(shardKeys);
+            requests.put(shard, shard.executeAsync(api -> api.eval(args)));
+        });
+
+        final Map<String, Long> timesToLive = new HashMap<>();
+        keysPerShard.forEach((shard, shardKeys) -> {
+            final Response response = requests.get(shard).join();
+            if (response == null) {
+                return;
+            }
+
+            for (int i = 0; i < shardKeys.size(); i++) {
+                timesToLive.put(shardKeys.get(i), response.get(i).toLong());
+            }
+        });
+
+        return timesToLive;
+    }
+
+    /**
+     * Create document given the key and value and sets to expire. The document is not stored when the key redis
+     * node is unavailable.
      *
      * @param key   the redis key
-     * @param time  the time until expire, in milliseconds
+     * @param time  the time until expire, in seconds
      * @param value the value
      */
+    @Override
     public void setWithExpire(final String key, final String time, final String value) {
-        redisClient.setex(key, time, value);
+        ring.getNode(key).execute(api -> api.setex(key, time, value));
+    }
+
+    /**
+     * Iterates over the keys matching a pattern in every redis node.
+     *
+     * @param pattern  the keys glob-style pattern
+     * @param consumer consumer of the keys found
+     * @return true if every redis node was scanned, false if a node was unavailable and its keys were skipped
+     */
+    @Override
+    public boolean scan(final String pattern, final Consumer<String> consumer) {
+        for (final RedisShard shard : shards) {
+            String cursor = "0";
+            do {
+                final List<String> args = Arrays.asList(cursor, "MATCH", pattern, "COUNT", SCAN_COUNT);
+                final Response response = shard.execute(api -> api.scan(args));
+                if (response == null) {
+                    return false;
+                }
+
+                cursor = response.get(0).toString();
+                final Response keys = response.get(1);
+                for (int i = 0; i < keys.size(); i++) {
+                    consumer.accept(keys.get(i).toString());
+                }
+            } while (!"0".equals(cursor));
+        }
+
+        return true;
+    }
+
+    /**
+     * Groups keys by the redis node that owns them.
+     *
+     * @param keys the redis keys
+     * @return the keys, by redis node
+     */
+    private Map<RedisShard, List<String>> getKeysPerShard(final Collection<String> keys) {
+        final Map<RedisShard, List<String>> keysPerShard = new LinkedHashMap<>();
+        for (final String key : keys) {
+            keysPerShard.computeIfAbsent(ring.getNode(key), shard -> new ArrayList<>()).add(key);
+        }
+
+        return keysPerShard;
     }
 }
@@ -0,0 +1,228 @@
+package org.acme.phone.sector.cache.redis;
+
+import io.smallrye.mutiny.TimeoutException;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.redis.client.Redis;
+import io.vertx.mutiny.redis.client.RedisAPI;
+import io.vertx.mutiny.redis.client.RedisConnection;
+import io.vertx.mutiny.redis.client.Response;
+import io.vertx.redis.client.RedisOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A single redis node of the sharded cache. When the node fails, it is considered unavailable during a retry
+ * interval, and every command sent to it in the meantime completes without a response, so callers handle the
+ * outage as a cache miss. The node fails on connection failures and on consecutive command timeouts, while an error
+ * reply or a single timeout only fails its own command.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class RedisShard {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisShard.class);
+
+    /**
+     * Vertx instance used to create the redis client.
+     */
+    private final Vertx vertx;
+    /**
+     * Redis node endpoint, e.g. {@code redis://localhost:6379}.
+     */
+    private final String endpoint;
+    /**
+     * Maximum time to wait for a redis command.
+     */
+    private final Duration timeout;
+    /**
+     * Time the node is considered unavailable after a failure.
+     */
+    private final Duration retryInterval;
+    /**
+     * Number of consecutive command timeouts after which the node is considered unavailable.
+     */
+    private final int timeoutThreshold;
+    /**
+     * Commands timed out since the last response.
+     */
+    private final AtomicInteger consecutiveTimeouts = new AtomicInteger();
+
+    /**
+     * Redis client, null while not connected.
+     */
+    private volatile Redis redis;
+    /**
+     * Connection to the node, null while not connected.
+     */
+    private volatile RedisConnection connection;
+    /**
+     * Redis api over the connection, null while not connected.
+     */
+    private volatile RedisAPI redisAPI;
+    /**
+     * Time, in milliseconds, until which the node is considered unavailable.
+     */
+    private volatile long unavailableUntil;
+
+    /**
+     * Constructor.
+     *
+     * @param vertx            vertx instance used to create the redis client
+     * @param endpoint         redis node endpoint
+     * @param timeout          maximum time to wait for a redis command
+     * @param retryInterval    time the node is considered unavailable after a failure
+     * @param timeoutThreshold number of consecutive command timeouts after which the node is considered unavailable
+     */
+    public RedisShard(final Vertx vertx, final String endpoint, final Duration timeout, final Duration retryInterval,
+                      final int timeoutThreshold) {
+        this.vertx = vertx;
+        this.endpoint = endpoint;
+        this.timeout = timeout;
+        this.retryInterval = retryInterval;
+        this.timeoutThreshold = timeoutThreshold;
+    }
+
+    /**
+     * Get the redis node endpoint.
+     *
+     * @return the endpoint
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Checks if the node is available to receive commands.
+     *
+     * @return true if available, false if it failed recently
+     */
+    public boolean isAvailable() {
+        return System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    /**
+     * Sends a command to the node and waits for its response.
+     *
+     * @param command the command to send
+     * @return the response, or null when the node is unavailable or the command failed
+     */
+    public Response execute(final Function<RedisAPI, Uni<Response>> command) {
+        return executeAsync(command).join();
+    }
+
+    /**
+     * Sends a command to the node without waiting for its response, so commands to several nodes can be in flight
+     * at the same time.
+     *
+     * @param command the command to send
+     * @return future completed with the response, or with null when the node is unavailable or the command failed
+     */
+    public CompletableFuture<Response> executeAsync(final Function<RedisAPI, Uni<Response>> command) {
+        if (!isAvailable()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final RedisAPI api;
+        try {
+            api = connect();
+        } catch (final Exception e) {
+            markUnavailable(e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return command.apply(api)
+                .ifNoItem().after(timeout).fail()
+                .onItem().invoke(response -> consecutiveTimeouts.set(0))
+                .onFailure().recoverWithItem(failure -> {
+                    handleFailure(failure);
+                    return null;
+                })
+                .subscribeAsCompletionStage();
+    }
+
+    /**
+     * Closes the connection to the node.
+     */
+    public synchronized void close() {
+        final Redis currentRedis = redis;
+        final RedisConnection currentConnection = connection;
+        redis = null;
+        connection = null;
+        redisAPI = null;
+        if (currentConnection != null) {
+            currentConnection.close();
+        }
+        if (currentRedis != null) {
+            currentRedis.close();
+        }
+    }
+
+    /**
+     * Get the redis api, connecting to the node if not connected yet.
+     *
+     * @return the redis api
+     */
+    private RedisAPI connect() {
+        final RedisAPI current = redisAPI;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (redisAPI == null) {
+                final RedisOptions options = new RedisOptions()
+                        .setEndpoints(Collections.singletonList(endpoint));
+                redis = Redis.createClient(vertx, options);
+                connection = redis.connect().await().atMost(timeout);
+                redisAPI = RedisAPI.api(connection);
+            }
+
+            return redisAPI;
+        }
+    }
+
+    /**
+     * Handles a failed command. An error reply fails only the command, as does a timeout until
+     * {@link #timeoutThreshold} commands timed out in a row, since the connection is shared by every command in
+     * flight. Any other failure is a connection failure and marks the node as unavailable.
+     *
+     * @param failure the command failure
+     */
+    private void handleFailure(final Throwable failure) {
+        if (failure instanceof io.vertx.redis.client.Response) {
+            LOGGER.warn("Redis shard {} replied with an error: {}.", endpoint, failure.getMessage());
+            return;
+        }
+
+        if (failure instanceof TimeoutException && consecutiveTimeouts.incrementAndGet() < timeoutThreshold) {
+            LOGGER.warn("Redis shard {} command timed out after {}.", endpoint, timeout);
+            return;
+        }
+
+        markUnavailable(failure);
+    }
+
+    /**
+     * Marks the node as unavailable during the retry interval and drops its connection.
+     *
+     * @param failure the failure that caused the outage
+     */
+    private void markUnavailable(final Throwable failure) {
+        if (isAvailable()) {
+            LOGGER.warn("Redis shard {} is unavailable, retrying in {}.", endpoint, retryInterval, failure);
+        }
+        unavailableUntil = System.currentTimeMillis() + retryInterval.toMillis();
+        consecutiveTimeouts.set(0);
+        close();
+    }
+}
@@ -34,4 +34,14 @@ public abstract class PhoneData {
      * @return the phone sector
      */
     public abstract String sector();
+
+    /**
+     * Time, in milliseconds, when the phone data expires in the cache.
+     *
+     * @return the expiration time, {@link Long#MAX_VALUE} when unknown
+     */
+    @Value.Default
+    public long expiresAt() {
+        return Long.MAX_VALUE;
+    }
 }
@@ -0,0 +1,39 @@
+package org.acme.phone.sector.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.Map;
+
+/**
+ * Phones aggregate, the count of valid phones broken down per prefix and per business sector.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutablePhonesAggregate.class)
+@JsonDeserialize(as = ImmutablePhonesAggregate.class)
+public abstract class PhonesAggregate {
+    /**
+     * Count of phones per prefix and per business sector.
+     *
+     * @return the count of phones
+     */
+    public abstract Map<String, Map<String, Integer>> sectors();
+
+    /**
+     * Entity tag identifying the {@link #sectors()} content.
+     *
+     * @return the entity tag
+     */
+    public abstract String etag();
+
+    /**
+     * Time, in milliseconds, when the aggregate expires.
+     *
+     * @return the expiration time
+     */
+    public abstract long expiresAt();
+}
@@ -0,0 +1,43 @@
+package org.acme.phone.sector.model;
+
+import org.immutables.value.Value;
+
+import java.util.List;
+
+/**
+ * Phones lookup result, the data found for the valid phone numbers of a request.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@Value.Immutable
+public abstract class PhonesLookup {
+    /**
+     * Phones data found.
+     *
+     * @return the phones data
+     */
+    public abstract List<PhoneData> phonesData();
+
+    /**
+     * Whether data was found for every valid phone number, i.e. no request to the external api failed.
+     *
+     * @return true if complete, false otherwise
+     */
+    public abstract boolean complete();
+
+    /**
+     * Time, in milliseconds, when the first of the phones data expires in the cache.
+     *
+     * @return the expiration time, {@link Long#MAX_VALUE} when unknown or without phones data
+     */
+    @Value.Derived
+    public long expiresAt() {
+        long expiresAt = Long.MAX_VALUE;
+        for (final PhoneData phoneData : phonesData()) {
+            expiresAt = Math.min(expiresAt, phoneData.expiresAt());
+        }
+
+        return expiresAt;
+    }
+}
@@ -58,6 +58,62 @@ public class PhoneResourceTest {
                 .body("isEmpty()", Matchers.is(true));
     }
 
+    /**
+     * Test request with the entity tag of a previous response for the same numbers.
+     */
+    @Test
+    public void testNotModifiedAggregate() {
+        final String entityTag = given()
+                .contentType(ContentType.JSON)
+                .accept(ContentType.JSON)
+                .body("[\"+1983248\", \"+4 439877\"]")
+                .when()
+                .post("/aggregate")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+
+        given()
+                .contentType(ContentType.JSON)
+                .accept(ContentType.JSON)
+                .header("If-None-Match", entityTag)
+                // same numbers in a different order and format
+                .body("[\"004439877\", \"+1 983 248\"]")
+                .when()
+                .post("/aggregate")
+                .then()
+                .statusCode(304)
+                .header("ETag", is(entityTag));
+    }
+
+    /**
+     * Test requests whose numbers, joined, read the same are aggregated apart: a number that is not valid is used as
+     * provided in the fingerprint, and may contain the characters that separate numbers.
+     */
+    @Test
+    public void testAmbiguousNumbersAggregate() {
+        given()
+                .contentType(ContentType.JSON)
+                .accept(ContentType.JSON)
+                .body("[\"+1983248\", \"X\"]")
+                .when()
+                .post("/aggregate")
+                .then()
+                .statusCode(200)
+                .body("1.Technology", is(1));
+
+        given()
+                .contentType(ContentType.JSON)
+                .accept(ContentType.JSON)
+                .body("[\"1983248\\nX\"]")
+                .when()
+                .post("/aggregate")
+                .then()
+                .statusCode(200)
+                .body("isEmpty()", Matchers.is(true));
+    }
+
     /**
      * Test request with invalid body.
      */
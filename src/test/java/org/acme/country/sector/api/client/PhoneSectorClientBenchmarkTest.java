@@ -0,0 +1,165 @@
+package org.acme.country.sector.api.client;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.acme.country.sector.api.WiremockPhoneSector;
+import org.acme.phone.sector.api.client.PhoneSectorBackend;
+import org.acme.phone.sector.api.client.RestClientPhoneSectorBackend;
+import org.acme.phone.sector.api.client.VertxPhoneSectorBackend;
+import org.eclipse.microprofile.metrics.MetricFilter;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark of the {@link PhoneSectorBackend} implementations against the phone sector api stand-in. Only runs with
+ * {@code -Dbenchmark=true}.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@QuarkusTest
+@QuarkusTestResource(WiremockPhoneSector.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class PhoneSectorClientBenchmarkTest {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhoneSectorClientBenchmarkTest.class);
+    /**
+     * Numbers requested, mocked by the stand-in.
+     */
+    private static final String[] NUMBERS = {"+1983248", "001382355", "+147 8192", "+4 439877"};
+    /**
+     * Requests performed before measuring.
+     */
+    private static final int WARM_UP_REQUESTS = 500;
+    /**
+     * Requests measured.
+     */
+    private static final int REQUESTS = 5000;
+    /**
+     * Concurrent requests.
+     */
+    private static final int CONCURRENCY = 32;
+
+    /**
+     * Rest client backend.
+     */
+    @Inject
+    private RestClientPhoneSectorBackend restClientBackend;
+
+    /**
+     * Vertx web client backend.
+     */
+    @Inject
+    private VertxPhoneSectorBackend vertxBackend;
+
+    /**
+     * Metric registry, to log the connection pool metrics.
+     */
+    @Inject
+    private MetricRegistry registry;
+
+    /**
+     * Benchmark the rest client backend.
+     *
+     * @throws Exception when the benchmark is interrupted
+     */
+    @Test
+    public void benchmarkRestClientBackend() throws Exception {
+        benchmark(restClientBackend);
+    }
+
+    /**
+     * Benchmark the vertx web client backend.
+     *
+     * @throws Exception when the benchmark is interrupted
+     */
+    @Test
+    public void benchmarkVertxBackend() throws Exception {
+        benchmark(vertxBackend);
+    }
+
+    /**
+     * Performs concurrent requests with a backend and logs its throughput and connection pool metrics.
+     *
+     * @param backend the backend to benchmark
+     * @throws Exception when the benchmark is interrupted
+     */
+    private void benchmark(final PhoneSectorBackend backend) throws Exception {
+        run(backend, WARM_UP_REQUESTS);
+
+        final long start = System.nanoTime();
+        final int failures = run(backend, REQUESTS);
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        LOGGER.info("Backend {} performed {} requests in {} ms ({} requests/s) with {} concurrent requests.",
+                backend.getName(), REQUESTS, elapsed, REQUESTS * 1000L / Math.max(1, elapsed), CONCURRENCY);
+        logPoolMetrics(backend);
+        assertEquals(0, failures);
+    }
+
+    /**
+     * Logs the connection pool metrics of a backend, for the backends that record them.
+     *
+     * @param backend the backend
+     */
+    private void logPoolMetrics(final PhoneSectorBackend backend) {
+        final MetricFilter filter = (id, metric) -> id.getName().startsWith("phone-sector.upstream.pool.")
+                && backend.getName().equals(id.getTags().get("backend"));
+        registry.getGauges(filter).forEach((id, gauge) ->
+                LOGGER.info("Backend {} {} {}.", backend.getName(), id.getName(), gauge.getValue()));
+        registry.getTimers(filter).forEach((id, timer) ->
+                LOGGER.info("Backend {} {} {} requests, mean {} ms, p99 {} ms.", backend.getName(), id.getName(),
+                        timer.getCount(), timer.getSnapshot().getMean() / 1_000_000,
+                        timer.getSnapshot().get99thPercentile() / 1_000_000));
+    }
+
+    /**
+     * Performs concurrent requests with a backend.
+     *
+     * @param backend  the backend
+     * @param requests number of requests
+     * @return number of failed requests
+     * @throws Exception when the requests are interrupted
+     */
+    private int run(final PhoneSectorBackend backend, final int requests) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        final AtomicInteger failures = new AtomicInteger();
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                final String number = NUMBERS[i % NUMBERS.length];
+                futures.add(executor.submit(() -> {
+                    try {
+                        backend.getByNumber(number);
+                    } catch (final Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        return failures.get();
+    }
+}
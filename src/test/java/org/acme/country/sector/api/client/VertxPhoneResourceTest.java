@@ -0,0 +1,140 @@
+package org.acme.country.sector.api.client;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.redis.client.Response;
+import org.acme.country.sector.api.PhoneResourceTest;
+import org.acme.country.sector.api.WiremockPhoneSector;
+import org.acme.phone.sector.api.client.VertxPhoneSectorBackend;
+import org.acme.phone.sector.cache.redis.RedisShard;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.enterprise.inject.Typed;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Test for {@link org.acme.phone.sector.api.PhoneResource} API over the {@link VertxPhoneSectorBackend}, running the
+ * same cases as {@link PhoneResourceTest}. Phones are cached in a redis database of their own, emptied before each
+ * test, so every case requests its numbers to the phone sector api stand-in, whose stubs only match encoded paths.
+ * Typed as its own class only, so its test instance is not a candidate for {@link PhoneResourceTest}.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@QuarkusTest
+@QuarkusTestResource(WiremockPhoneSector.class)
+@TestProfile(VertxPhoneResourceTest.VertxBackendProfile.class)
+@Typed(VertxPhoneResourceTest.class)
+public class VertxPhoneResourceTest extends PhoneResourceTest {
+    /**
+     * Redis nodes the tests cache phones in, on a database used by no other test.
+     */
+    private static final List<String> SHARDS = Arrays.asList("redis://localhost:6379/1", "redis://localhost:6380/1");
+
+    /**
+     * Vertx instance used to create the redis clients.
+     */
+    @Inject
+    private Vertx vertx;
+
+    /**
+     * Metric registry, to check the requests went through the vertx backend connection pool.
+     */
+    @Inject
+    private MetricRegistry registry;
+
+    /**
+     * Empties the redis database of the tests, so the numbers are requested to the phone sector api.
+     */
+    @BeforeEach
+    public void flushCache() {
+        for (final String endpoint : SHARDS) {
+            final RedisShard shard = new RedisShard(vertx, endpoint, Duration.ofSeconds(1), Duration.ofSeconds(1), 1);
+            try {
+                final Response response = shard.execute(api -> api.flushdb(Collections.emptyList()));
+                assertEquals("OK", String.valueOf(response));
+            } finally {
+                shard.close();
+            }
+        }
+    }
+
+    /**
+     * Test request with a number the phone sector api fails for, aggregated without it, through the vertx backend.
+     */
+    @Test
+    public void testFailedRequestAggregate() {
+        final String found = "1" + (7000000 + ThreadLocalRandom.current().nextInt(1000000));
+        final String failed = "1" + (8000000 + ThreadLocalRandom.current().nextInt(1000000));
+        stubSector(found, 200);
+        stubSector(failed, 500);
+
+        given()
+                .contentType(ContentType.JSON)
+                .accept(ContentType.JSON)
+                .body(Arrays.asList(found, failed))
+                .when()
+                .post("/aggregate")
+                .then()
+                .statusCode(200)
+                .body("1.Technology", is(1));
+
+        verify(1, getRequestedFor(urlEqualTo("/sector/" + found)));
+        verify(1, getRequestedFor(urlEqualTo("/sector/" + failed)));
+        assertFalse(registry.getGauges((id, metric) -> id.getName().equals("phone-sector.upstream.pool.open-connections"))
+                .isEmpty());
+    }
+
+    /**
+     * Stubs the phone sector api response for a number.
+     *
+     * @param number the number
+     * @param status the response status
+     */
+    private static void stubSector(final String number, final int status) {
+        stubFor(get(urlEqualTo("/sector/" + number))
+                .willReturn(aResponse()
+                        .withStatus(status)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"number\": \"+" + number + "\", \"sector\": \"Technology\"}")
+                )
+        );
+    }
+
+    /**
+     * Profile with the vertx backend, caching phones in a redis database of their own.
+     */
+    public static class VertxBackendProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            final Map<String, String> overrides = new HashMap<>();
+            overrides.put("phone-sector-api.client.backend", VertxPhoneSectorBackend.NAME);
+            overrides.put("phone-sector.redis.shards", String.join(",", SHARDS));
+            return overrides;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.acme.country.sector.api.pipeline;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.acme.country.sector.api.WiremockPhoneSector;
+import org.acme.phone.sector.api.pipeline.AggregatePipeline;
+import org.acme.phone.sector.model.PhonesLookup;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link AggregatePipeline}, covering numbers requested once across batches and lookups with failed
+ * requests to the phone sector api.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@QuarkusTest
+@QuarkusTestResource(WiremockPhoneSector.class)
+@TestProfile(AggregatePipelineTest.SmallBatchesProfile.class)
+public class AggregatePipelineTest {
+    /**
+     * Numbers per batch in the tests.
+     */
+    private static final int BATCH_SIZE = 2;
+    /**
+     * Delay of a slow phone sector api response, in milliseconds.
+     */
+    private static final int SLOW_RESPONSE_DELAY = 500;
+
+    /**
+     * Aggregate pipeline.
+     */
+    @Inject
+    private AggregatePipeline aggregatePipeline;
+
+    /**
+     * Test a number repeated in different batches, in different formats, is requested once.
+     */
+    @Test
+    public void testRepeatedNumberRequestedOnce() {
+        final String repeated = newNumber();
+        final String first = newNumber();
+        final String second = newNumber();
+        // slow, so the repeated number is not cached yet when the second batch is looked up
+        stubSector(repeated, 200, SLOW_RESPONSE_DELAY);
+        stubSector(first, 200);
+        stubSector(second, 200);
+
+        // the repeated number is in the first and second batches
+        final PhonesLookup phonesLookup = aggregatePipeline.getPhonesData(Arrays.asList(repeated, first, second, "00" + repeated));
+
+        assertTrue(phonesLookup.complete());
+        assertEquals(4, phonesLookup.phonesData().size());
+        verify(1, getRequestedFor(urlEqualTo("/sector/" + repeated)));
+        verify(0, getRequestedFor(urlEqualTo("/sector/00" + repeated)));
+    }
+
+    /**
+     * Test a lookup with a failed request to the phone sector api is not complete.
+     */
+    @Test
+    public void testFailedRequestIsIncomplete() {
+        final String found = newNumber();
+        final String failed = newNumber();
+        stubSector(found, 200);
+        stubSector(failed, 500);
+
+        final PhonesLookup phonesLookup = aggregatePipeline.getPhonesData(Arrays.asList(found, failed));
+
+        assertFalse(phonesLookup.complete());
+        assertEquals(1, phonesLookup.phonesData().size());
+        assertEquals(found, phonesLookup.phonesData().get(0).number());
+    }
+
+    /**
+     * Get a number not requested before, with a known prefix.
+     *
+     * @return the number
+     */
+    private static String newNumber() {
+        return "1" + (6000000 + ThreadLocalRandom.current().nextInt(1000000));
+    }
+
+    /**
+     * Stubs the phone sector api response for a number.
+     *
+     * @param number the number
+     * @param status the response status
+     */
+    private static void stubSector(final String number, final int status) {
+        stubSector(number, status, 0);
+    }
+
+    /**
+     * Stubs the phone sector api response for a number, responded after a delay.
+     *
+     * @param number the number
+     * @param status the response status
+     * @param delay  the response delay, in milliseconds
+     */
+    private static void stubSector(final String number, final int status, final int delay) {
+        stubFor(get(urlEqualTo("/sector/" + number))
+                .willReturn(aResponse()
+                        .withStatus(status)
+                        .withFixedDelay(delay)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"number\": \"+" + number + "\", \"sector\": \"Technology\"}")
+                )
+        );
+    }
+
+    /**
+     * Profile with small batches, so few numbers span several batches.
+     */
+    public static class SmallBatchesProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Collections.singletonMap("phone-sector.pipeline.batch-size", String.valueOf(BATCH_SIZE));
+        }
+    }
+}
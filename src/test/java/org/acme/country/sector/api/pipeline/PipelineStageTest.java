@@ -0,0 +1,136 @@
+package org.acme.country.sector.api.pipeline;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import org.acme.phone.sector.api.pipeline.PipelineStage;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link PipelineStage}, covering submissions blocked while the stage is full and places released by failed
+ * tasks.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class PipelineStageTest {
+    /**
+     * Maximum number of tasks queued or running in the tests.
+     */
+    private static final int CAPACITY = 2;
+    /**
+     * Maximum time to wait for a task, in milliseconds.
+     */
+    private static final long TIMEOUT = 5000;
+
+    /**
+     * Metric registry.
+     */
+    private MetricRegistry registry;
+    /**
+     * Executor running the stage tasks.
+     */
+    private ExecutorService executor;
+    /**
+     * Stage under test.
+     */
+    private PipelineStage stage;
+
+    /**
+     * Creates the stage.
+     */
+    @BeforeEach
+    public void createStage() {
+        registry = new MetricsRegistryImpl();
+        executor = Executors.newFixedThreadPool(CAPACITY + 1);
+        stage = new PipelineStage("test", executor, CAPACITY, registry);
+    }
+
+    /**
+     * Shuts down the stage.
+     *
+     * @throws InterruptedException when interrupted while waiting for the stage
+     */
+    @AfterEach
+    public void shutdownStage() throws InterruptedException {
+        stage.shutdown(TIMEOUT);
+    }
+
+    /**
+     * Test a submission to a full stage blocks until a task finishes.
+     *
+     * @throws Exception when the tasks fail
+     */
+    @Test
+    public void testBlocksAtCapacity() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < CAPACITY; i++) {
+            stage.submit(() -> await(release));
+        }
+        assertEquals(CAPACITY, stage.getQueueDepth());
+
+        final AtomicReference<CompletableFuture<String>> submitted = new AtomicReference<>();
+        final Thread submitter = new Thread(() -> submitted.set(stage.submit(() -> "done")));
+        submitter.start();
+        submitter.join(500);
+        assertTrue(submitter.isAlive(), "Submission to a full stage did not block.");
+        assertEquals(1, registry.counter("phone-sector.pipeline.blocked", new Tag("stage", "test")).getCount());
+
+        release.countDown();
+        submitter.join(TIMEOUT);
+        assertFalse(submitter.isAlive(), "Submission still blocked after tasks finished.");
+        assertEquals("done", submitted.get().get(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Test failed tasks release their place in the stage.
+     *
+     * @throws Exception when the tasks fail unexpectedly
+     */
+    @Test
+    public void testReleasesOnFailure() throws Exception {
+        for (int i = 0; i < CAPACITY * 2; i++) {
+            final CompletableFuture<String> failed = stage.submit(() -> {
+                throw new IllegalStateException("failed");
+            });
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> failed.get(TIMEOUT, TimeUnit.MILLISECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(0, stage.getQueueDepth());
+        assertEquals("done", stage.submit(() -> "done").get(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(0, registry.counter("phone-sector.pipeline.blocked", new Tag("stage", "test")).getCount());
+    }
+
+    /**
+     * Waits for a latch, as a task holding its place in the stage.
+     *
+     * @param latch the latch
+     * @return the task result
+     */
+    private static String await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return "released";
+    }
+}
@@ -0,0 +1,112 @@
+package org.acme.country.sector.cache;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.acme.country.sector.api.WiremockPhoneSector;
+import org.acme.phone.sector.cache.AggregateCacheService;
+import org.acme.phone.sector.cache.KeyValueStore;
+import org.acme.phone.sector.cache.local.PhonesFilterCache;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link AggregateCacheService}, covering the numbers fingerprints and the aggregates cached by the aggregate
+ * api.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@QuarkusTest
+@QuarkusTestResource(WiremockPhoneSector.class)
+public class AggregateCacheServiceTest {
+    /**
+     * Aggregate cache service, to get the numbers fingerprints.
+     */
+    @Inject
+    private AggregateCacheService aggregateCacheService;
+
+    /**
+     * Key-value store, to store documents directly.
+     */
+    @Inject
+    private KeyValueStore store;
+
+    /**
+     * Phones filter, to add the phones stored directly.
+     */
+    @Inject
+    private PhonesFilterCache phonesFilterCache;
+
+    /**
+     * Test the same numbers in any order and format share a fingerprint, while lists whose numbers joined read the
+     * same do not.
+     */
+    @Test
+    public void testFingerprint() {
+        assertEquals(aggregateCacheService.getFingerprint(Arrays.asList("+1983248", "+4 439877")),
+                aggregateCacheService.getFingerprint(Arrays.asList("004439877", "+1 983 248")));
+        assertNotEquals(aggregateCacheService.getFingerprint(Arrays.asList("+1983248", "X")),
+                aggregateCacheService.getFingerprint(Collections.singletonList("1983248\nX")));
+        assertNotEquals(aggregateCacheService.getFingerprint(Arrays.asList("1:2", "3")),
+                aggregateCacheService.getFingerprint(Collections.singletonList("1:21:3")));
+    }
+
+    /**
+     * Test request for numbers whose cached aggregate fails to deserialize, aggregated again as a cache miss.
+     */
+    @Test
+    public void testCorruptAggregate() {
+        final List<String> numbers = Arrays.asList("+4 439 877", "004439877", "+4439877");
+        store.setWithExpire("aggregate:" + aggregateCacheService.getFingerprint(numbers), "60", "{\"sectors\":");
+
+        given()
+                .contentType(ContentType.JSON)
+                .accept(ContentType.JSON)
+                .body(numbers)
+                .when()
+                .post("/aggregate")
+                .then()
+                .statusCode(200)
+                .body("44.Banking", is(3));
+    }
+
+    /**
+     * Test request for numbers found in the cache is cached until the first of its phones expires.
+     */
+    @Test
+    public void testAggregateExpiresWithPhones() {
+        final String canonicalNumber = "1" + (5000000 + ThreadLocalRandom.current().nextInt(1000000));
+        final long phoneTimeToLive = 10;
+        store.setWithExpire("phone:" + canonicalNumber, String.valueOf(phoneTimeToLive),
+                "{\"number\":\"+" + canonicalNumber + "\",\"prefix\":\"1\",\"sector\":\"Technology\","
+                        + "\"expiresAt\":" + (System.currentTimeMillis() + phoneTimeToLive * 1000) + "}");
+        phonesFilterCache.put("phone:" + canonicalNumber);
+
+        final List<String> numbers = Collections.singletonList("+" + canonicalNumber);
+        given()
+                .contentType(ContentType.JSON)
+                .accept(ContentType.JSON)
+                .body(numbers)
+                .when()
+                .post("/aggregate")
+                .then()
+                .statusCode(200)
+                .body("1.Technology", is(1));
+
+        final Long timeToLive = store.getTimeToLive("aggregate:" + aggregateCacheService.getFingerprint(numbers));
+        assertTrue(timeToLive != null && timeToLive > 0 && timeToLive <= phoneTimeToLive,
+                "Aggregate outlives its phones: " + timeToLive);
+    }
+}
@@ -0,0 +1,68 @@
+package org.acme.country.sector.cache;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.acme.country.sector.api.WiremockPhoneSector;
+import org.acme.phone.sector.cache.PhoneCacheService;
+import org.acme.phone.sector.model.ImmutablePhoneData;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link PhoneCacheService}, covering the jittered phones expiration.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@QuarkusTest
+@QuarkusTestResource(WiremockPhoneSector.class)
+public class PhoneCacheServiceTest {
+    /**
+     * Number of phones stored in the test.
+     */
+    private static final int PHONES = 50;
+
+    /**
+     * Phone cache service.
+     */
+    @Inject
+    private PhoneCacheService phoneCacheService;
+
+    /**
+     * Fraction of the expiration time randomly taken off each phone expiration.
+     */
+    @ConfigProperty(name = "phone-sector.redis.expiration-jitter")
+    double expirationJitter;
+
+    /**
+     * Test phones expire within the jitter of the expiration time, and not all at the same time.
+     *
+     * @throws Exception when the phones fail to be stored
+     */
+    @Test
+    public void testExpirationJitter() throws Exception {
+        final long minimum = (long) (PhoneCacheService.EXPIRATION_TIME * (1 - expirationJitter));
+        final Set<Long> timesToLive = new HashSet<>();
+        for (int i = 0; i < PHONES; i++) {
+            final String number = String.valueOf(3000001 + i);
+            phoneCacheService.setPhone(ImmutablePhoneData.builder()
+                    .number(number)
+                    .prefix("3")
+                    .sector("Technology")
+                    .build());
+
+            final long timeToLive = phoneCacheService.getPhoneTimeToLive(number);
+            assertTrue(timeToLive >= minimum && timeToLive <= PhoneCacheService.EXPIRATION_TIME,
+                    "Time to live out of the jitter range: " + timeToLive);
+            timesToLive.add(timeToLive);
+        }
+
+        assertTrue(timesToLive.size() > 1, "Phones expire at the same time.");
+    }
+}
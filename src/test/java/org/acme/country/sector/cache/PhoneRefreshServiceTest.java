@@ -0,0 +1,183 @@
+package org.acme.country.sector.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.redis.client.RedisClient;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.acme.country.sector.api.WiremockPhoneSector;
+import org.acme.phone.sector.cache.PhoneCacheService;
+import org.acme.phone.sector.cache.PhoneRefreshService;
+import org.acme.phone.sector.cache.local.PhonesAccessCache;
+import org.acme.phone.sector.model.ImmutablePhoneData;
+import org.acme.phone.sector.model.PhoneData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link PhoneRefreshService}, covering the selection of the most accessed phones to refresh and their
+ * refresh.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@QuarkusTest
+@QuarkusTestResource(WiremockPhoneSector.class)
+@TestProfile(PhoneRefreshServiceTest.RefreshProfile.class)
+public class PhoneRefreshServiceTest {
+    /**
+     * Redis node the phones are stored in.
+     */
+    private static final String SHARD = "redis://localhost:6379";
+    /**
+     * Maximum number of phones refreshed at once in the tests.
+     */
+    private static final int BUDGET = 2;
+    /**
+     * Fraction of the expiration time randomly taken off each phone expiration.
+     */
+    private static final double EXPIRATION_JITTER = 0.1;
+    /**
+     * Decays that drop any count.
+     */
+    private static final int MAX_DECAYS = Long.SIZE;
+
+    /**
+     * Refresh service.
+     */
+    @Inject
+    private PhoneRefreshService phoneRefreshService;
+
+    /**
+     * Phones access cache.
+     */
+    @Inject
+    private PhonesAccessCache phonesAccessCache;
+
+    /**
+     * Redis client, to store phones with a given expiration.
+     */
+    @Inject
+    private RedisClient redisClient;
+
+    /**
+     * Object mapper to read the phones stored.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Drops the accesses recorded by previous tests.
+     */
+    @BeforeEach
+    public void clearAccesses() {
+        for (int i = 0; i < MAX_DECAYS; i++) {
+            phonesAccessCache.decay();
+        }
+    }
+
+    /**
+     * Test the phones selected are the most accessed expiring within the window or already expired, up to the budget,
+     * skipping the phones stored without expiration.
+     */
+    @Test
+    public void testPhonesToRefresh() {
+        redisClient.del(Arrays.asList("phone:2000001", "phone:2000002", "phone:2000003", "phone:2000004",
+                "phone:2000005"));
+
+        // expires within the window
+        redisClient.setex("phone:2000001", "1800", "{}");
+        record("2000001", 6);
+        // stored without expiration
+        redisClient.set(Arrays.asList("phone:2000002", "{}"));
+        record("2000002", 5);
+        // expires after the window
+        redisClient.setex("phone:2000003", "7200", "{}");
+        record("2000003", 4);
+        // already expired
+        record("2000004", 3);
+        // expires within the window, over the budget
+        redisClient.setex("phone:2000005", "60", "{}");
+        record("2000005", 2);
+
+        assertEquals(Arrays.asList("2000001", "2000004"), phoneRefreshService.getPhonesToRefresh().stream()
+                .map(PhoneData::number)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Test a phone selected is requested again to the phone sector api and stored with its sector and a new jittered
+     * expiration, reflected in the phone data stored.
+     *
+     * @throws Exception when fails to read the phone stored
+     */
+    @Test
+    public void testRefreshPhone() throws Exception {
+        redisClient.setex("phone:1983248", "60",
+                "{\"number\": \"+1983248\", \"prefix\": \"1\", \"sector\": \"Stale\"}");
+        final PhoneData phoneData = ImmutablePhoneData.builder()
+                .number("+1983248")
+                .prefix("1")
+                .sector("Stale")
+                .build();
+        phonesAccessCache.recordAccess("phone:1983248", phoneData);
+
+        final long now = System.currentTimeMillis();
+        final List<PhoneData> refreshed = phoneRefreshService.refresh();
+        assertEquals(1, refreshed.size());
+        assertEquals("Technology", refreshed.get(0).sector());
+
+        final PhoneData stored = objectMapper.readValue(redisClient.get("phone:1983248").toString(), PhoneData.class);
+        assertEquals("+1983248", stored.number());
+        assertEquals("Technology", stored.sector());
+
+        final long timeToLive = redisClient.ttl("phone:1983248").toLong();
+        final long minTimeToLive = (long) (PhoneCacheService.EXPIRATION_TIME * (1 - EXPIRATION_JITTER));
+        assertTrue(timeToLive >= minTimeToLive - 5 && timeToLive <= PhoneCacheService.EXPIRATION_TIME,
+                "Unexpected time to live: " + timeToLive);
+        final long storedTimeToLive = (stored.expiresAt() - now) / 1000;
+        assertTrue(Math.abs(storedTimeToLive - timeToLive) <= 5, "Unexpected expiration: " + stored.expiresAt());
+    }
+
+    /**
+     * Records accesses to a phone.
+     *
+     * @param number the phone number
+     * @param count  the number of accesses
+     */
+    private void record(final String number, final int count) {
+        final PhoneData phoneData = ImmutablePhoneData.builder()
+                .number(number)
+                .prefix("2")
+                .sector("Technology")
+                .build();
+        for (int i = 0; i < count; i++) {
+            phonesAccessCache.recordAccess("phone:" + number, phoneData);
+        }
+    }
+
+    /**
+     * Profile with a single redis node, a one hour window and a small budget, without scheduled refreshes.
+     */
+    public static class RefreshProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            final Map<String, String> overrides = new HashMap<>();
+            overrides.put("phone-sector.redis.shards", SHARD);
+            overrides.put("phone-sector.refresh.enabled", "false");
+            overrides.put("phone-sector.refresh.window", "1h");
+            overrides.put("phone-sector.refresh.budget", String.valueOf(BUDGET));
+            return overrides;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package org.acme.country.sector.cache.embedded;
+
+import org.acme.phone.sector.cache.embedded.MappedKeyValueStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test for {@link MappedKeyValueStore}, covering expiration, reopening, crash recovery, compaction and full stores.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class MappedKeyValueStoreTest {
+    /**
+     * Initial size of the store file.
+     */
+    private static final int INITIAL_SIZE = 4096;
+    /**
+     * Maximum size of the store file.
+     */
+    private static final int MAX_SIZE = 1024 * 1024;
+    /**
+     * Size of the store file header.
+     */
+    private static final int HEADER_SIZE = 8;
+    /**
+     * Size of the record fields before key and value.
+     */
+    private static final int RECORD_HEADER_SIZE = 20;
+    /**
+     * Fraction of the store file taken by replaced or expired documents above which a full store is compacted.
+     */
+    private static final double COMPACTION_THRESHOLD = 0.5;
+    /**
+     * Documents written to a full store in the tests.
+     */
+    private static final int FULL_WRITES = 200;
+    /**
+     * Documents stored before compacting concurrently with writes.
+     */
+    private static final int COMPACTION_DOCUMENTS = 2000;
+    /**
+     * Compactions run concurrently with writes.
+     */
+    private static final int COMPACTIONS = 20;
+    /**
+     * Maximum documents written concurrently with compactions, so the store does not fill up.
+     */
+    private static final int COMPACTION_WRITES = 3000;
+    /**
+     * Phone document stored in the tests.
+     */
+    private static final String PHONE = "{\"number\":\"+1983248\",\"prefix\":\"1\",\"sector\":\"Technology\"}";
+
+    /**
+     * Directory of the store files.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Test documents are found until they expire.
+     *
+     * @throws IOException when the store fails
+     */
+    @Test
+    public void testExpiration() throws IOException {
+        try (MappedKeyValueStore store = open()) {
+            store.setWithExpire("phone:1983248", "60", PHONE);
+            store.setWithExpire("phone:1382355", "0", PHONE);
+
+            assertTrue(store.keyExists("phone:1983248"));
+            assertEquals(PHONE, store.get("phone:1983248"));
+            assertEquals(60, (long) store.getTimeToLive("phone:1983248"));
+
+            assertFalse(store.keyExists("phone:1382355"));
+            assertNull(store.get("phone:1382355"));
+            assertEquals(-2, (long) store.getTimeToLive("phone:1382355"));
+
+            final Map<String, String> documents = store.getAll(Arrays.asList("phone:1983248", "phone:1382355"));
+            assertEquals(1, documents.size());
+            assertEquals(PHONE, documents.get("phone:1983248"));
+
+            final Map<String, Long> timesToLive = store.getTimesToLive(Arrays.asList("phone:1983248", "phone:1382355"));
+            assertEquals(60, (long) timesToLive.get("phone:1983248"));
+            assertEquals(-2, (long) timesToLive.get("phone:1382355"));
+        }
+    }
+
+    /**
+     * Test documents, and their latest values, are found after reopening the store, growing past its initial size.
+     *
+     * @throws IOException when the store fails
+     */
+    @Test
+    public void testReopen() throws IOException {
+        try (MappedKeyValueStore store = open()) {
+            for (int i = 0; i < 1000; i++) {
+                store.setWithExpire("phone:" + i, "60", PHONE);
+            }
+            store.setWithExpire("phone:0", "60", "{}");
+        }
+
+        try (MappedKeyValueStore store = open()) {
+            assertEquals(1000, store.size());
+            assertEquals("{}", store.get("phone:0"));
+            assertEquals(PHONE, store.get("phone:999"));
+
+            final List<String> keys = new ArrayList<>();
+            assertTrue(store.scan("phone:99?", keys::add));
+            assertEquals(10, keys.size());
+        }
+    }
+
+    /**
+     * Test a store with a torn last record is reopened with the records before it, and accepts new records.
+     *
+     * @throws IOException when the store fails
+     */
+    @Test
+    public void testRecovery() throws IOException {
+        try (MappedKeyValueStore store = open()) {
+            store.setWithExpire("phone:1983248", "60", PHONE);
+            store.setWithExpire("phone:1382355", "60", PHONE);
+        }
+
+        // overwrite the last byte of the second record, as if the crash happened while writing it
+        final int recordSize = RECORD_HEADER_SIZE + "phone:1983248".length() + PHONE.length();
+        try (FileChannel channel = FileChannel.open(directory.resolve("phone-sector.cache"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'x'}), HEADER_SIZE + 2 * recordSize - 1);
+        }
+
+        try (MappedKeyValueStore store = open()) {
+            assertEquals(PHONE, store.get("phone:1983248"));
+            assertNull(store.get("phone:1382355"));
+
+            store.setWithExpire("phone:4439877", "60", PHONE);
+        }
+
+        try (MappedKeyValueStore store = open()) {
+            assertEquals(2, store.size());
+            assertEquals(PHONE, store.get("phone:4439877"));
+        }
+    }
+
+    /**
+     * Test compaction drops replaced and expired documents and keeps the live ones.
+     *
+     * @throws IOException when the store fails
+     */
+    @Test
+    public void testCompaction() throws IOException {
+        try (MappedKeyValueStore store = open()) {
+            for (int i = 0; i < 100; i++) {
+                store.setWithExpire("phone:1983248", "60", PHONE);
+            }
+            store.setWithExpire("phone:1382355", "0", PHONE);
+            assertTrue(store.getGarbageRatio() > 0.9);
+
+            store.compact();
+            assertEquals(0, store.getGarbageRatio(), 0);
+            assertEquals(1, store.size());
+            assertEquals(PHONE, store.get("phone:1983248"));
+        }
+
+        try (MappedKeyValueStore store = open()) {
+            assertEquals(1, store.size());
+            assertEquals(PHONE, store.get("phone:1983248"));
+        }
+    }
+
+    /**
+     * Test documents are read and written during compaction, and the ones written meanwhile survive it.
+     *
+     * @throws Exception when the store or the compacting thread fails
+     */
+    @Test
+    public void testWritesDuringCompaction() throws Exception {
+        int written = 0;
+        try (MappedKeyValueStore store = open()) {
+            for (int i = 0; i < COMPACTION_DOCUMENTS; i++) {
+                store.setWithExpire("phone:" + i, "60", PHONE);
+                store.setWithExpire("phone:" + i, "60", PHONE);
+            }
+
+            final ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                final Future<?> compactions = executor.submit(() -> {
+                    for (int i = 0; i < COMPACTIONS; i++) {
+                        store.compact();
+                    }
+                    return null;
+                });
+
+                while (!compactions.isDone() && written < COMPACTION_WRITES) {
+                    store.setWithExpire("phone:written-" + written, "60", PHONE);
+                    assertEquals(PHONE, store.get("phone:" + written % COMPACTION_DOCUMENTS));
+                    written++;
+                }
+                compactions.get();
+            } finally {
+                executor.shutdown();
+            }
+
+            assertEquals(COMPACTION_DOCUMENTS + written, store.size());
+            assertEquals(PHONE, store.get("phone:written-" + (written - 1)));
+        }
+
+        try (MappedKeyValueStore store = open()) {
+            assertEquals(COMPACTION_DOCUMENTS + written, store.size());
+            assertEquals(PHONE, store.get("phone:" + (COMPACTION_DOCUMENTS - 1)));
+            assertEquals(PHONE, store.get("phone:written-" + (written - 1)));
+        }
+    }
+
+    /**
+     * Test a full store of live documents rejects new documents without compacting.
+     *
+     * @throws IOException when the store fails
+     */
+    @Test
+    public void testFullStoreWithoutGarbage() throws IOException {
+        try (MappedKeyValueStore store = open()) {
+            final int stored = fillWithLiveDocuments(store);
+            assertEquals(0, store.getGarbageRatio(), 0);
+
+            final Object fileKey = getFileKey();
+            for (int i = 0; i < FULL_WRITES; i++) {
+                store.setWithExpire("phone:rejected-" + i, "60", PHONE);
+            }
+
+            // compaction replaces the store file, so the same file means no compaction
+            assertEquals(fileKey, getFileKey());
+            assertEquals(stored, store.size());
+            assertNull(store.get("phone:rejected-0"));
+            assertEquals(PHONE, store.get("phone:0"));
+        }
+    }
+
+    /**
+     * Test a full store with replaced documents above the compaction threshold is compacted to store new documents.
+     *
+     * @throws IOException when the store fails
+     */
+    @Test
+    public void testFullStoreWithGarbage() throws IOException {
+        try (MappedKeyValueStore store = open()) {
+            fillWithReplacedDocuments(store, "phone:1983248");
+            assertTrue(store.getGarbageRatio() > COMPACTION_THRESHOLD);
+
+            final Object fileKey = getFileKey();
+            store.setWithExpire("phone:1382355", "60", PHONE);
+
+            assertNotEquals(fileKey, getFileKey());
+            assertEquals(2, store.size());
+            assertEquals(PHONE, store.get("phone:1983248"));
+            assertEquals(PHONE, store.get("phone:1382355"));
+        }
+    }
+
+    /**
+     * Stores documents with distinct keys until the store is full.
+     *
+     * @param store the store
+     * @return the number of documents stored
+     */
+    private static int fillWithLiveDocuments(final MappedKeyValueStore store) {
+        for (int i = 0; store.size() == i; i++) {
+            store.setWithExpire("phone:" + i, "60", PHONE);
+        }
+
+        return store.size();
+    }
+
+    /**
+     * Replaces a document as many times as the store fits, so all but the last record are garbage.
+     *
+     * @param store the store
+     * @param key   the document key
+     */
+    private static void fillWithReplacedDocuments(final MappedKeyValueStore store, final String key) {
+        final int recordSize = RECORD_HEADER_SIZE + key.length() + PHONE.length();
+        for (int i = 0; i < (MAX_SIZE - HEADER_SIZE) / recordSize; i++) {
+            store.setWithExpire(key, "60", PHONE);
+        }
+    }
+
+    /**
+     * Get the identity of the store file, which changes when compaction replaces it.
+     *
+     * @return the file key
+     * @throws IOException when the file attributes cannot be read
+     */
+    private Object getFileKey() throws IOException {
+        final Object fileKey = Files.readAttributes(directory.resolve("phone-sector.cache"), BasicFileAttributes.class)
+                .fileKey();
+        assumeTrue(fileKey != null, "File keys are not supported.");
+        return fileKey;
+    }
+
+    /**
+     * Opens the store in the test directory.
+     *
+     * @return the store
+     * @throws IOException when the store fails to open
+     */
+    private MappedKeyValueStore open() throws IOException {
+        return new MappedKeyValueStore(directory.resolve("phone-sector.cache"), INITIAL_SIZE, MAX_SIZE,
+                COMPACTION_THRESHOLD);
+    }
+}
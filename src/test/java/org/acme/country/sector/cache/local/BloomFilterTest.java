@@ -0,0 +1,59 @@
+package org.acme.country.sector.cache.local;
+
+import org.acme.phone.sector.cache.local.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link BloomFilter}, covering membership answers and false positive probability.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class BloomFilterTest {
+    /**
+     * Number of values added in each test.
+     */
+    private static final int INSERTIONS = 10000;
+    /**
+     * Desired false positive probability.
+     */
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    /**
+     * Test every value added is reported as possibly contained.
+     */
+    @Test
+    public void testNoFalseNegatives() {
+        final BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_PROBABILITY);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put("phone:" + (1983248 + i));
+        }
+
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(filter.mightContain("phone:" + (1983248 + i)));
+        }
+    }
+
+    /**
+     * Test values never added are mostly reported as not contained.
+     */
+    @Test
+    public void testFalsePositiveRate() {
+        final BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_PROBABILITY);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put("phone:" + (1983248 + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < INSERTIONS; i++) {
+            if (filter.mightContain("phone:" + (4439877 + INSERTIONS + i))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < INSERTIONS * FALSE_POSITIVE_PROBABILITY * 2, "Too many false positives: " + falsePositives);
+        assertTrue(filter.getFalsePositiveProbability() < FALSE_POSITIVE_PROBABILITY * 2);
+    }
+}
@@ -0,0 +1,154 @@
+package org.acme.country.sector.cache.local;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.acme.country.sector.api.WiremockPhoneSector;
+import org.acme.phone.sector.cache.local.PhonesAccessCache;
+import org.acme.phone.sector.model.ImmutablePhoneData;
+import org.acme.phone.sector.model.PhoneData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Test for {@link PhonesAccessCache}, covering the tracked phones limit, decay and most accessed ordering.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@QuarkusTest
+@QuarkusTestResource(WiremockPhoneSector.class)
+@TestProfile(PhonesAccessCacheTest.TrackedPhonesProfile.class)
+public class PhonesAccessCacheTest {
+    /**
+     * Maximum number of phones tracked in the tests.
+     */
+    private static final int TRACKED_PHONES = 3;
+    /**
+     * Decays that drop any count.
+     */
+    private static final int MAX_DECAYS = Long.SIZE;
+
+    /**
+     * Phones access cache.
+     */
+    @Inject
+    private PhonesAccessCache phonesAccessCache;
+
+    /**
+     * Drops the accesses recorded by previous tests.
+     */
+    @BeforeEach
+    public void clearAccesses() {
+        for (int i = 0; i < MAX_DECAYS; i++) {
+            phonesAccessCache.decay();
+        }
+    }
+
+    /**
+     * Test phones accessed while the limit is reached are not tracked, and the tracked ones keep counting.
+     */
+    @Test
+    public void testTrackedPhonesLimit() {
+        record("1000001", 1);
+        record("1000002", 1);
+        record("1000003", 1);
+        record("1000004", 5);
+        record("1000001", 2);
+
+        final List<String> mostAccessed = getMostAccessed(10);
+        assertEquals(TRACKED_PHONES, mostAccessed.size());
+        assertEquals("1000001", mostAccessed.get(0));
+        assertFalse(mostAccessed.contains("1000004"), "Phone tracked over the limit.");
+    }
+
+    /**
+     * Test decay halves the counts, dropping the phones whose count reaches zero.
+     */
+    @Test
+    public void testDecay() {
+        record("1000001", 4);
+        record("1000002", 3);
+        record("1000003", 1);
+
+        phonesAccessCache.decay();
+        assertEquals(Arrays.asList("1000001", "1000002"), getMostAccessed(10));
+
+        phonesAccessCache.decay();
+        assertEquals(Collections.singletonList("1000001"), getMostAccessed(10));
+
+        // a phone dropped by decay is tracked again from zero
+        record("1000003", 2);
+        assertEquals(Arrays.asList("1000003", "1000001"), getMostAccessed(10));
+
+        phonesAccessCache.decay();
+        assertEquals(Collections.singletonList("1000003"), getMostAccessed(10));
+    }
+
+    /**
+     * Test the most accessed phones are returned most accessed first, up to the limit.
+     */
+    @Test
+    public void testMostAccessedOrdering() {
+        record("1000001", 1);
+        record("1000002", 3);
+        record("1000003", 2);
+
+        assertEquals(Arrays.asList("1000002", "1000003", "1000001"), getMostAccessed(10));
+        assertEquals(Arrays.asList("1000002", "1000003"), getMostAccessed(2));
+    }
+
+    /**
+     * Records accesses to a phone.
+     *
+     * @param number the phone number
+     * @param count  the number of accesses
+     */
+    private void record(final String number, final int count) {
+        final PhoneData phoneData = ImmutablePhoneData.builder()
+                .number(number)
+                .prefix("1")
+                .sector("Technology")
+                .build();
+        for (int i = 0; i < count; i++) {
+            phonesAccessCache.recordAccess("phone:" + number, phoneData);
+        }
+    }
+
+    /**
+     * Get the numbers of the most accessed phones.
+     *
+     * @param limit maximum number of phones to return
+     * @return the phone numbers, most accessed first
+     */
+    private List<String> getMostAccessed(final int limit) {
+        return phonesAccessCache.getMostAccessed(limit).stream()
+                .map(PhoneData::number)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Profile tracking few phones, without refreshes decaying the accesses.
+     */
+    public static class TrackedPhonesProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            final Map<String, String> overrides = new HashMap<>();
+            overrides.put("phone-sector.refresh.tracked-phones", String.valueOf(TRACKED_PHONES));
+            overrides.put("phone-sector.refresh.enabled", "false");
+            return overrides;
+        }
+    }
+}
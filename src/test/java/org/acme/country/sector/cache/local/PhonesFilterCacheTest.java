@@ -0,0 +1,171 @@
+package org.acme.country.sector.cache.local;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.acme.country.sector.api.WiremockPhoneSector;
+import org.acme.phone.sector.cache.local.BloomFilter;
+import org.acme.phone.sector.cache.local.PhonesFilterCache;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link PhonesFilterCache}, covering phones added while the filter is rebuilt.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@QuarkusTest
+@QuarkusTestResource(WiremockPhoneSector.class)
+@TestProfile(PhonesFilterCacheTest.SmallFilterProfile.class)
+public class PhonesFilterCacheTest {
+    /**
+     * Threads adding phones.
+     */
+    private static final int WRITERS = 4;
+    /**
+     * Phones added by each thread on each round.
+     */
+    private static final int PHONES = 2000;
+    /**
+     * Rounds of phones added while rebuilding.
+     */
+    private static final int ROUNDS = 200;
+    /**
+     * Phones never added, looked up to check the filter still excludes phones.
+     */
+    private static final int ABSENT_PHONES = 1000;
+    /**
+     * Phones the filter is sized for, the phones of a round.
+     */
+    private static final int EXPECTED_INSERTIONS = WRITERS * PHONES;
+
+    /**
+     * Phones filter.
+     */
+    @Inject
+    private PhonesFilterCache phonesFilterCache;
+
+    /**
+     * Test phones added while rebuilds run are in the filter that replaces the current one. Each phone is marked as
+     * stored before being added, as phones are stored in the cache before being added to the filter, and each rebuild
+     * adds the phones of the round stored when it started, as its scan of the cache would. Each round starts from an
+     * empty filter, so the filter holds at most the phones of a round and still excludes the phones never added.
+     *
+     * @throws Exception when the writers fail
+     */
+    @Test
+    public void testPutDuringRebuild() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                clear();
+                addDuringRebuilds(executor, round);
+
+                for (int w = 0; w < WRITERS; w++) {
+                    for (int i = 0; i < PHONES; i++) {
+                        final String key = key(round, w, i);
+                        assertTrue(phonesFilterCache.mightContain(key), "Phone missing from the filter: " + key);
+                    }
+                }
+
+                int falsePositives = 0;
+                for (int i = 0; i < ABSENT_PHONES; i++) {
+                    falsePositives += phonesFilterCache.mightContain(key(round, WRITERS, i)) ? 1 : 0;
+                }
+                assertTrue(falsePositives < ABSENT_PHONES / 10, "Filter does not exclude phones: " + falsePositives);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Replaces the filter with an empty one, once the rebuild in progress, if any, finishes.
+     *
+     * @throws InterruptedException when interrupted while waiting for the rebuild in progress
+     */
+    private void clear() throws InterruptedException {
+        BloomFilter empty;
+        while ((empty = phonesFilterCache.startRebuild()) == null) {
+            Thread.sleep(10);
+        }
+        phonesFilterCache.finishRebuild(empty, true);
+    }
+
+    /**
+     * Adds the phones of a round from several threads, while rebuilding the filter until they finish.
+     *
+     * @param executor executor running the writers
+     * @param round    the round
+     * @throws Exception when the writers fail
+     */
+    private void addDuringRebuilds(final ExecutorService executor, final int round) throws Exception {
+        final AtomicInteger writing = new AtomicInteger(WRITERS);
+        final AtomicIntegerArray stored = new AtomicIntegerArray(WRITERS);
+        final List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < PHONES; i++) {
+                    stored.set(writer, i + 1);
+                    phonesFilterCache.put(key(round, writer, i));
+                }
+                writing.decrementAndGet();
+            }));
+        }
+
+        while (writing.get() > 0) {
+            final BloomFilter rebuilding = phonesFilterCache.startRebuild();
+            if (rebuilding != null) {
+                for (int w = 0; w < WRITERS; w++) {
+                    final int scanned = stored.get(w);
+                    for (int i = 0; i < scanned; i++) {
+                        rebuilding.put(key(round, w, i));
+                    }
+                }
+                phonesFilterCache.finishRebuild(rebuilding, true);
+            }
+        }
+
+        for (final Future<?> writer : writers) {
+            writer.get();
+        }
+    }
+
+    /**
+     * Get the key of a phone added by a writer.
+     *
+     * @param round  the round
+     * @param writer the writer
+     * @param phone  the phone index
+     * @return the phone key
+     */
+    private static String key(final int round, final int writer, final int phone) {
+        return "phone:rebuild-" + round + "-" + writer + "-" + phone;
+    }
+
+    /**
+     * Profile with a filter sized for the phones of a round.
+     */
+    public static class SmallFilterProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Collections.singletonMap("phone-sector.bloom.expected-insertions",
+                    String.valueOf(EXPECTED_INSERTIONS));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.acme.country.sector.cache.redis;
+
+import org.acme.phone.sector.cache.redis.ConsistentHashRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link ConsistentHashRing}, covering the distribution of keys across nodes.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class ConsistentHashRingTest {
+    /**
+     * Number of keys used in each test.
+     */
+    private static final int KEYS = 10000;
+    /**
+     * Number of positions each node takes on the ring.
+     */
+    private static final int VIRTUAL_NODES = 160;
+
+    /**
+     * Test keys are spread across all nodes.
+     */
+    @Test
+    public void testKeysDistribution() {
+        final ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes(3), VIRTUAL_NODES);
+
+        final Map<String, Integer> keysPerNode = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            keysPerNode.merge(ring.getNode(String.valueOf(1983248 + i)), 1, Integer::sum);
+        }
+
+        assertEquals(3, keysPerNode.size());
+        keysPerNode.values().forEach(keys -> assertTrue(keys > KEYS / 6, "Node owns too few keys: " + keys));
+    }
+
+    /**
+     * Test adding a node only moves keys to the new node.
+     */
+    @Test
+    public void testAddNodeRemapsOnlyItsKeys() {
+        final ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes(3), VIRTUAL_NODES);
+        final ConsistentHashRing<String> grownRing = new ConsistentHashRing<>(nodes(4), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            final String key = String.valueOf(1983248 + i);
+            final String node = ring.getNode(key);
+            final String grownNode = grownRing.getNode(key);
+            if (!node.equals(grownNode)) {
+                assertEquals("node-3", grownNode);
+                moved++;
+            }
+        }
+
+        assertTrue(moved < KEYS / 2, "Too many keys moved: " + moved);
+    }
+
+    /**
+     * Create nodes by name.
+     *
+     * @param count number of nodes
+     * @return nodes by name
+     */
+    private static Map<String, String> nodes(final int count) {
+        final Map<String, String> nodes = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            nodes.put("node-" + i, "node-" + i);
+        }
+
+        return nodes;
+    }
+}
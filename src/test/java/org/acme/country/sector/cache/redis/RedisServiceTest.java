@@ -0,0 +1,112 @@
+package org.acme.country.sector.cache.redis;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.acme.country.sector.api.WiremockPhoneSector;
+import org.acme.phone.sector.cache.redis.ConsistentHashRing;
+import org.acme.phone.sector.cache.redis.RedisService;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link RedisService} with one of its redis nodes down, covering the outage handled as cache misses.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+@QuarkusTest
+@QuarkusTestResource(WiremockPhoneSector.class)
+@TestProfile(RedisServiceTest.DeadShardProfile.class)
+public class RedisServiceTest {
+    /**
+     * Redis node up during the tests.
+     */
+    private static final String LIVE_SHARD = "redis://localhost:6379";
+    /**
+     * Redis node nothing listens on.
+     */
+    private static final String DEAD_SHARD = "redis://localhost:6399";
+    /**
+     * Number of keys used in each test.
+     */
+    private static final int KEYS = 100;
+    /**
+     * Number of positions each redis node takes on the hash ring.
+     */
+    private static final int VIRTUAL_NODES = 160;
+
+    /**
+     * Redis service.
+     */
+    @Inject
+    private RedisService redisService;
+
+    /**
+     * Test keys owned by the dead node are misses, while the keys owned by the live node are found, on every
+     * lookup after the node is marked unavailable.
+     */
+    @Test
+    public void testDeadShardKeysAreMisses() {
+        final Map<String, String> nodes = new LinkedHashMap<>();
+        nodes.put(LIVE_SHARD, LIVE_SHARD);
+        nodes.put(DEAD_SHARD, DEAD_SHARD);
+        final ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes, VIRTUAL_NODES);
+
+        final List<String> keys = new ArrayList<>();
+        final List<String> liveKeys = new ArrayList<>();
+        for (int i = 0; i < KEYS; i++) {
+            final String key = "outage:" + (1983248 + i);
+            keys.add(key);
+            if (LIVE_SHARD.equals(ring.getNode(key))) {
+                liveKeys.add(key);
+            }
+            redisService.setWithExpire(key, "60", "value-" + key);
+        }
+        assertTrue(!liveKeys.isEmpty() && liveKeys.size() < KEYS, "Keys not spread across nodes: " + liveKeys.size());
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final Map<String, String> documents = redisService.getAll(keys);
+            assertEquals(liveKeys.size(), documents.size());
+            liveKeys.forEach(key -> assertEquals("value-" + key, documents.get(key)));
+        }
+
+        final Map<String, Long> timesToLive = redisService.getTimesToLive(keys);
+        assertEquals(liveKeys.size(), timesToLive.size());
+        liveKeys.forEach(key -> assertTrue(timesToLive.get(key) > 0 && timesToLive.get(key) <= 60));
+
+        for (final String key : keys) {
+            if (liveKeys.contains(key)) {
+                assertEquals("value-" + key, redisService.get(key));
+            } else {
+                assertNull(redisService.get(key));
+                assertFalse(redisService.keyExists(key));
+                assertNull(redisService.getTimeToLive(key));
+            }
+        }
+
+        assertFalse(redisService.scan("outage:*", key -> { }));
+    }
+
+    /**
+     * Profile with a second redis node nothing listens on.
+     */
+    public static class DeadShardProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Collections.singletonMap("phone-sector.redis.shards", LIVE_SHARD + "," + DEAD_SHARD);
+        }
+    }
+}
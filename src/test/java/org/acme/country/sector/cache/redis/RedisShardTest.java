@@ -0,0 +1,124 @@
+package org.acme.country.sector.cache.redis;
+
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.redis.client.Response;
+import org.acme.phone.sector.cache.redis.RedisShard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link RedisShard}, covering the failures that make the node unavailable and the ones that only fail
+ * their own command.
+ *
+ * @author Jose Monteiro (j.pedroteixeira.monteiro@gmail.com)
+ * @since 1.0.0
+ */
+public class RedisShardTest {
+    /**
+     * Redis node up during the tests.
+     */
+    private static final String SHARD = "redis://localhost:6379";
+    /**
+     * Key used in the tests.
+     */
+    private static final String KEY = "shard-test:list";
+    /**
+     * Time the node is considered unavailable after a failure.
+     */
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(5);
+    /**
+     * Number of consecutive command timeouts after which the node is considered unavailable.
+     */
+    private static final int TIMEOUT_THRESHOLD = 2;
+
+    /**
+     * Vertx instance used to create the redis client.
+     */
+    private Vertx vertx;
+    /**
+     * Redis node under test.
+     */
+    private RedisShard shard;
+
+    /**
+     * Creates the vertx instance.
+     */
+    @BeforeEach
+    public void setUp() {
+        vertx = Vertx.vertx();
+    }
+
+    /**
+     * Closes the node connection and the vertx instance.
+     */
+    @AfterEach
+    public void tearDown() {
+        if (shard != null) {
+            shard.close();
+        }
+        vertx.closeAndAwait();
+    }
+
+    /**
+     * Test an error reply fails only its command, keeping the node and its connection available.
+     */
+    @Test
+    public void testErrorReplyKeepsNodeAvailable() {
+        shard = new RedisShard(vertx, SHARD, Duration.ofSeconds(1), RETRY_INTERVAL, TIMEOUT_THRESHOLD);
+        shard.execute(api -> api.del(Collections.singletonList(KEY)));
+        shard.execute(api -> api.lpush(Arrays.asList(KEY, "value")));
+
+        // WRONGTYPE, the key holds a list
+        assertNull(shard.execute(api -> api.get(KEY)));
+        assertTrue(shard.isAvailable());
+
+        final Response length = shard.execute(api -> api.llen(KEY));
+        assertEquals(1, length.toInteger());
+        shard.execute(api -> api.del(Collections.singletonList(KEY)));
+    }
+
+    /**
+     * Test a single command timeout keeps the node available, and consecutive timeouts up to the threshold make it
+     * unavailable.
+     */
+    @Test
+    public void testConsecutiveTimeoutsMakeNodeUnavailable() {
+        shard = new RedisShard(vertx, SHARD, Duration.ofMillis(200), RETRY_INTERVAL, TIMEOUT_THRESHOLD);
+        shard.execute(api -> api.del(Collections.singletonList(KEY)));
+
+        // blocks the connection for a second on the missing list, past the command timeout
+        assertNull(shard.execute(api -> api.blpop(Arrays.asList(KEY, "1"))));
+        assertTrue(shard.isAvailable());
+
+        assertNull(shard.execute(api -> api.blpop(Arrays.asList(KEY, "1"))));
+        assertFalse(shard.isAvailable());
+        assertNull(shard.execute(api -> api.ping(Collections.emptyList())));
+    }
+
+    /**
+     * Test a response resets the timeouts count, so timeouts apart do not make the node unavailable.
+     */
+    @Test
+    public void testResponseResetsTimeouts() throws InterruptedException {
+        shard = new RedisShard(vertx, SHARD, Duration.ofMillis(200), RETRY_INTERVAL, TIMEOUT_THRESHOLD);
+        shard.execute(api -> api.del(Collections.singletonList(KEY)));
+
+        assertNull(shard.execute(api -> api.blpop(Arrays.asList(KEY, "1"))));
+        // waits for the blocked command to finish, so the connection answers again
+        Thread.sleep(1200);
+        assertEquals("PONG", shard.execute(api -> api.ping(Collections.emptyList())).toString());
+
+        assertNull(shard.execute(api -> api.blpop(Arrays.asList(KEY, "1"))));
+        assertTrue(shard.isAvailable());
+    }
+}